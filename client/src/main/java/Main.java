@@ -1,6 +1,8 @@
 import chess.*;
 import client.ServerFacade;
 import client.GameplayUI;
+import client.LobbyCache;
+import client.websocket.WebSocketFacade;
 import model.AuthData;
 import model.GameData;
 import ui.EscapeSequences;
@@ -11,6 +13,8 @@ public class Main {
     private static Scanner scanner;
     private static AuthData currentAuth = null;
     private static GameData[] lastGamesList = null;
+    private static WebSocketFacade lobbySocket = null;
+    private static LobbyCache lobby = null;
 
     public static void main(String[] args) {
         System.out.println("♕ 240 Chess Client Starting...");
@@ -140,6 +144,7 @@ public class Main {
         try {
             currentAuth = serverFacade.login(username, password);
             System.out.println("Login successful! Welcome " + currentAuth.getUsername());
+            watchLobby();
         } catch (Exception e) {
             String cleanMessage = cleanErrorMessage(e.getMessage());
             System.out.println("Login failed: " + cleanMessage);
@@ -176,6 +181,7 @@ public class Main {
         try {
             currentAuth = serverFacade.register(username, password, email);
             System.out.println("Registration successful! Welcome " + currentAuth.getUsername());
+            watchLobby();
         } catch (Exception e) {
             String cleanMessage = cleanErrorMessage(e.getMessage());
             System.out.println("Registration failed: " + cleanMessage);
@@ -183,6 +189,7 @@ public class Main {
     }
 
     private static void logout() throws Exception {
+        stopWatchingLobby();
         try {
             serverFacade.logout(currentAuth.getAuthToken());
             System.out.println("Logged out successfully");
@@ -193,6 +200,25 @@ public class Main {
         }
     }
 
+    // Keeps the lobby cache current from server pushes; without it, list asks the server each time
+    private static void watchLobby() {
+        try {
+            lobby = new LobbyCache();
+            lobbySocket = new WebSocketFacade("http://localhost:8080", lobby);
+            lobbySocket.subscribeLobby(currentAuth.getAuthToken());
+        } catch (Exception e) {
+            stopWatchingLobby();
+        }
+    }
+
+    private static void stopWatchingLobby() {
+        if (lobbySocket != null) {
+            lobbySocket.close();
+        }
+        lobbySocket = null;
+        lobby = null;
+    }
+
     private static void createGame(String gameName) {
         if (gameName.isEmpty()) {
             System.out.println("Game name cannot be empty");
@@ -210,7 +236,13 @@ public class Main {
 
     private static void listGames() throws Exception {
         try {
-            lastGamesList = serverFacade.listGames(currentAuth.getAuthToken());
+            // This listing comes from the server; the new subscription serves the next one
+            if (lobby != null && lobby.isClosed()) {
+                stopWatchingLobby();
+                watchLobby();
+            }
+            GameData[] pushed = lobby == null ? null : lobby.games();
+            lastGamesList = pushed != null ? pushed : serverFacade.listGames(currentAuth.getAuthToken());
 
             if (lastGamesList.length == 0) {
                 System.out.println("No games found");
@@ -255,9 +287,10 @@ public class Main {
 
             System.out.println("Successfully joined game '" + selectedGame.getGameName() + "' as " + color);
 
-            ChessBoard board = selectedGame.getGame().getBoard();
-            boolean whiteOnBottom = color.equals("WHITE");
-            drawChessBoard(board, whiteOnBottom);
+            // Lobby entries carry no board; the game's first LOAD_GAME draws it instead
+            if (selectedGame.getGame() != null) {
+                drawChessBoard(selectedGame.getGame().getBoard(), color.equals("WHITE"));
+            }
 
             ChessGame.TeamColor playerColor = color.equals("WHITE") ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
             GameplayUI gameplayUI = new GameplayUI(
@@ -300,8 +333,9 @@ public class Main {
 
             System.out.println("Now observing game '" + selectedGame.getGameName() + "'");
 
-            ChessBoard board = selectedGame.getGame().getBoard();
-            drawChessBoard(board, true);
+            if (selectedGame.getGame() != null) {
+                drawChessBoard(selectedGame.getGame().getBoard(), true);
+            }
 
             GameplayUI gameplayUI = new GameplayUI(
                     scanner,
@@ -0,0 +1,97 @@
+package client;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import websocket.messages.MoveMadeMessage;
+
+import java.io.IOException;
+
+/**
+ * The client's copy of one game, kept current by LOAD_GAME boards and MOVE_MADE deltas.
+ * A delta is only applied if it is newer than the board and leaves the same position
+ * the server reached, as checked by the position hash. Otherwise the client asks for a
+ * RESYNC, once, and ignores deltas until the fresh board arrives.
+ */
+class GameSync {
+
+    interface ResyncRequester {
+        void requestResync() throws IOException;
+    }
+
+    enum Outcome {
+        APPLIED,
+        IGNORED,
+        RESYNC_REQUESTED
+    }
+
+    private final ResyncRequester resyncRequester;
+    private ChessGame game;
+    // Version of game; MOVE_MADE deltas at or below it are already applied
+    private int version;
+    // Deltas are ignored between asking for a RESYNC and its LOAD_GAME arriving
+    private boolean awaitingResync;
+
+    GameSync(ResyncRequester resyncRequester) {
+        this.resyncRequester = resyncRequester;
+    }
+
+    ChessGame game() {
+        return game;
+    }
+
+    void load(ChessGame game, int version) {
+        this.game = game;
+        this.version = version;
+        awaitingResync = false;
+    }
+
+    /**
+     * A failed RESYNC sends no LOAD_GAME, so the next bad delta may ask again.
+     */
+    void errorReceived() {
+        awaitingResync = false;
+    }
+
+    /**
+     * @throws IOException if a RESYNC was needed but could not be sent
+     */
+    Outcome moveMade(MoveMadeMessage moveMessage) throws IOException {
+        // Sent before the board we have, or queued behind a RESYNC that will include it
+        if (awaitingResync || moveMessage.getSequence() <= version) {
+            return Outcome.IGNORED;
+        }
+        if (applyMove(moveMessage)) {
+            return Outcome.APPLIED;
+        }
+        awaitingResync = true;
+        try {
+            resyncRequester.requestResync();
+        } catch (IOException e) {
+            awaitingResync = false;
+            throw e;
+        }
+        return Outcome.RESYNC_REQUESTED;
+    }
+
+    /*
+     * Plays the delta on a copy of the local game. Returns false if there is no local game
+     * yet, the move does not apply, or the result differs from the server's.
+     */
+    private boolean applyMove(MoveMadeMessage moveMessage) {
+        if (game == null) {
+            return false;
+        }
+        ChessGame next = new ChessGame(game);
+        try {
+            next.makeMove(moveMessage.getMove());
+        } catch (InvalidMoveException e) {
+            return false;
+        }
+        if (next.positionHash() != moveMessage.getPositionHash()) {
+            return false;
+        }
+        game = next;
+        version = moveMessage.getSequence();
+        return true;
+    }
+}
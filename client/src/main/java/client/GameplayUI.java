@@ -5,6 +5,7 @@ import com.google.gson.Gson;
 import client.websocket.WebSocketFacade;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMadeMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
@@ -29,7 +30,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
     private final ChessGame.TeamColor playerColor;
     private final GameplayCallback callback;
     private WebSocketFacade webSocket;
-    private ChessGame currentGame;
+    private final GameSync sync = new GameSync(this::requestResync);
     private boolean isObserver;
 
     public GameplayUI(Scanner scanner, String serverUrl, String authToken, String username,
@@ -51,7 +52,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
 
     public void start() {
         try {
-            webSocket = new WebSocketFacade(serverUrl, this);
+            webSocket = new WebSocketFacade(serverUrl, this, Boolean.getBoolean("chess.ws.binary"));
             webSocket.connectToGame(authToken, gameID);
             System.out.println("Connected to game. Type 'help' for available commands.");
             gameplayLoop();
@@ -106,6 +107,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
     }
 
     private void redrawBoard() {
+        ChessGame currentGame = sync.game();
         if (currentGame != null) {
             System.out.println("\nCurrent game state:");
             drawBoard(currentGame.getBoard());
@@ -293,6 +295,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
     }
 
     private void makeMove() {
+        ChessGame currentGame = sync.game();
         if (isObserver) {
             System.out.println("Observers cannot make moves.");
             return;
@@ -315,6 +318,8 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
 
         System.out.print("Enter your move (e.g., 'e2 e4' or 'e7 e8 Q' for promotion): ");
         String moveInput = scanner.nextLine().trim();
+        // The board may have changed while the move was typed
+        currentGame = sync.game();
 
         try {
             ChessMove move = parseMove(moveInput);
@@ -400,6 +405,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
     }
 
     private void highlightMoves() {
+        ChessGame currentGame = sync.game();
         if (currentGame == null) {
             System.out.println("No game loaded.");
             return;
@@ -407,6 +413,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
 
         System.out.print("Enter the position of the piece to highlight (e.g., 'e2'): ");
         String positionInput = scanner.nextLine().trim();
+        currentGame = sync.game();
 
         ChessPosition position = parsePosition(positionInput);
         if (position == null) {
@@ -517,6 +524,7 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
     }
 
     private boolean isGameOver() {
+        ChessGame currentGame = sync.game();
         if (currentGame == null) {
             return false;
         }
@@ -527,6 +535,24 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
                 currentGame.isInStalemate(ChessGame.TeamColor.BLACK);
     }
 
+    private void requestResync() throws IOException {
+        webSocket.requestResync(authToken, gameID);
+    }
+
+    private void showUpdatedBoard() {
+        ChessGame currentGame = sync.game();
+        System.out.println("\n" + EscapeSequences.ERASE_LINE + "Game board updated:");
+        drawBoard(currentGame.getBoard());
+
+        if (isGameOver()) {
+            System.out.println(EscapeSequences.SET_TEXT_COLOR_RED +
+                    "Game is over - no more moves allowed." +
+                    EscapeSequences.RESET_TEXT_COLOR);
+        }
+
+        System.out.print(">>> ");
+    }
+
     @Override
     public void notify(ServerMessage message) {
         switch (message.getServerMessageType()) {
@@ -534,26 +560,29 @@ public class GameplayUI implements WebSocketFacade.NotificationHandler {
                 LoadGameMessage loadMessage = (LoadGameMessage) message;
 
                 Object gameObject = loadMessage.getGame();
+                ChessGame game;
                 if (gameObject instanceof ChessGame) {
-                    currentGame = (ChessGame) gameObject;
+                    game = (ChessGame) gameObject;
                 } else {
                     Gson gson = new Gson();
                     String gameJson = gson.toJson(gameObject);
-                    currentGame = gson.fromJson(gameJson, ChessGame.class);
+                    game = gson.fromJson(gameJson, ChessGame.class);
                 }
+                sync.load(game, loadMessage.getVersion());
 
-                System.out.println("\n" + EscapeSequences.ERASE_LINE + "Game board updated:");
-                drawBoard(currentGame.getBoard());
-
-                if (isGameOver()) {
-                    System.out.println(EscapeSequences.SET_TEXT_COLOR_RED +
-                            "Game is over - no more moves allowed." +
-                            EscapeSequences.RESET_TEXT_COLOR);
+                showUpdatedBoard();
+            }
+            case MOVE_MADE -> {
+                try {
+                    if (sync.moveMade((MoveMadeMessage) message) == GameSync.Outcome.APPLIED) {
+                        showUpdatedBoard();
+                    }
+                } catch (IOException e) {
+                    System.out.println("Failed to resync game: " + e.getMessage());
                 }
-
-                System.out.print(">>> ");
             }
             case ERROR -> {
+                sync.errorReceived();
                 ErrorMessage errorMessage = (ErrorMessage) message;
                 System.out.println("\n" + EscapeSequences.SET_TEXT_COLOR_RED +
                         "ERROR: " + errorMessage.getErrorMessage() +
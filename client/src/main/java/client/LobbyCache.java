@@ -0,0 +1,69 @@
+package client;
+
+import client.websocket.WebSocketFacade;
+import model.GameData;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LobbyMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.TreeMap;
+
+/**
+ * The client's copy of the lobby, kept current by LOBBY messages pushed over a lobby
+ * subscription so that listing games needs no request to the server. Changes can arrive
+ * out of order and on either side of the snapshot, so for each game the copy with the
+ * highest version wins.
+ * <p>
+ * Nothing is pushed once the subscription's socket closes, e.g. when the server restarts
+ * or drops a slow reader, so the copy is then discarded rather than served stale.
+ */
+public class LobbyCache implements WebSocketFacade.NotificationHandler {
+    private final TreeMap<Integer, GameData> games = new TreeMap<>();
+    private boolean loaded;
+    private boolean closed;
+
+    @Override
+    public synchronized void notify(ServerMessage message) {
+        if (message instanceof ErrorMessage error) {
+            System.err.println("Lobby updates unavailable: " + error.getErrorMessage());
+            return;
+        }
+        if (!(message instanceof LobbyMessage lobby)) {
+            return;
+        }
+        if (lobby.getChange() == LobbyMessage.Change.CLEARED) {
+            games.clear();
+        }
+        for (GameData game : lobby.getGames()) {
+            GameData known = games.get(game.getGameID());
+            if (known == null || known.getVersion() <= game.getVersion()) {
+                games.put(game.getGameID(), game);
+            }
+        }
+        if (lobby.getChange() == LobbyMessage.Change.SNAPSHOT) {
+            loaded = true;
+        }
+    }
+
+    @Override
+    public synchronized void closed(String reason) {
+        closed = true;
+        loaded = false;
+        games.clear();
+    }
+
+    /**
+     * @return true once the subscription has ended; a new LobbyCache must subscribe again
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the games in ID order, without their boards, or null until the snapshot has
+     *         arrived or after the subscription has ended
+     */
+    public synchronized GameData[] games() {
+        return loaded ? games.values().toArray(new GameData[0]) : null;
+    }
+}
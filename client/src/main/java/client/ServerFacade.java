@@ -11,10 +11,14 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.util.zip.GZIPInputStream;
 
 public class ServerFacade {
     private final String serverUrl;
     private final Gson gson = new Gson();
+    // Last lobby listing and its ETag, so an unchanged lobby costs a 304 with no body
+    private String listingTag;
+    private GameData[] listing;
 
     public ServerFacade(int port) {
         this.serverUrl = "http://localhost:" + port;
@@ -43,8 +47,30 @@ public class ServerFacade {
     }
 
     public GameData[] listGames(String authToken) throws Exception {
-        var result = makeRequest("GET", "/game", null, ListGamesResult.class, authToken);
-        return result.games();
+        try {
+            URL url = (new URI(serverUrl + "/game")).toURL();
+            HttpURLConnection http = (HttpURLConnection) url.openConnection();
+            http.setRequestMethod("GET");
+            http.addRequestProperty("Authorization", authToken);
+            http.addRequestProperty("Accept-Encoding", "gzip");
+            if (listingTag != null) {
+                http.addRequestProperty("If-None-Match", listingTag);
+            }
+
+            http.connect();
+            if (http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return listing;
+            }
+            throwIfNotSuccessful(http);
+
+            try (InputStream respBody = responseBody(http)) {
+                listing = gson.fromJson(new InputStreamReader(respBody), ListGamesResult.class).games();
+            }
+            listingTag = http.getHeaderField("ETag");
+            return listing;
+        } catch (Exception ex) {
+            throw new Exception("HTTP request failed: " + ex.getMessage());
+        }
     }
 
     public void joinGame(String authToken, int gameId, String playerColor) throws Exception {
@@ -87,6 +113,11 @@ public class ServerFacade {
         }
     }
 
+    private static InputStream responseBody(HttpURLConnection http) throws IOException {
+        InputStream body = http.getInputStream();
+        return "gzip".equalsIgnoreCase(http.getContentEncoding()) ? new GZIPInputStream(body) : body;
+    }
+
     private void throwIfNotSuccessful(HttpURLConnection http) throws IOException, Exception {
         var status = http.getResponseCode();
         if (!isSuccessful(status)) {
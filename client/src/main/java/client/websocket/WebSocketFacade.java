@@ -5,9 +5,14 @@ import chess.ChessMove;
 import client.EscapeSequences;
 
 import com.google.gson.Gson;
+import websocket.commands.CommandCodec;
+import websocket.commands.ConnectCommand;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.LobbyMessage;
+import websocket.messages.MessageCodec;
+import websocket.messages.MoveMadeMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 import websocket.commands.MakeMoveCommand;
@@ -15,6 +20,7 @@ import websocket.commands.MakeMoveCommand;
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 @ClientEndpoint
 public class WebSocketFacade extends Endpoint {
@@ -22,12 +28,29 @@ public class WebSocketFacade extends Endpoint {
     private final Gson gson = new Gson();
     private Session session;
     private NotificationHandler notificationHandler;
+    private final boolean binaryFrames;
 
     public interface NotificationHandler {
         void notify(ServerMessage message);
+
+        /**
+         * Called when the connection is lost or closed, by either side. No more messages
+         * will arrive.
+         */
+        default void closed(String reason) {
+        }
     }
 
     public WebSocketFacade(String url, NotificationHandler notificationHandler) throws Exception {
+        this(url, notificationHandler, false);
+    }
+
+    /**
+     * @param binaryFrames true to ask the server for the compact binary protocol at CONNECT
+     *                     and send every later command as a binary frame
+     */
+    public WebSocketFacade(String url, NotificationHandler notificationHandler, boolean binaryFrames) throws Exception {
+        this.binaryFrames = binaryFrames;
         try {
             this.notificationHandler = notificationHandler;
             URI socketURI = new URI(url.replace("http", "ws") + "/ws");
@@ -41,6 +64,12 @@ public class WebSocketFacade extends Endpoint {
                     handleMessage(message);
                 }
             });
+            this.session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+                @Override
+                public void onMessage(ByteBuffer message) {
+                    handleBinaryMessage(message);
+                }
+            });
         } catch (Exception ex) {
             throw new Exception("Failed to connect to WebSocket: " + ex.getMessage());
         }
@@ -50,19 +79,39 @@ public class WebSocketFacade extends Endpoint {
     public void onOpen(Session session, EndpointConfig endpointConfig) {
     }
 
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        notificationHandler.closed(closeReason.getCloseCode().getCode() + " " + closeReason.getReasonPhrase());
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        notificationHandler.closed(error.getMessage());
+    }
+
     public void connectToGame(String authToken, Integer gameID) throws IOException {
         try {
-            UserGameCommand connectCommand = new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameID);
+            // Always text: the server does not know this client speaks binary until it reads this
+            UserGameCommand connectCommand = new ConnectCommand(authToken, gameID, true, binaryFrames);
             this.session.getBasicRemote().sendText(gson.toJson(connectCommand));
         } catch (IOException ex) {
             throw new IOException("Failed to send connect command: " + ex.getMessage());
         }
     }
 
+    public void requestResync(String authToken, Integer gameID) throws IOException {
+        try {
+            UserGameCommand resyncCommand = new UserGameCommand(UserGameCommand.CommandType.RESYNC, authToken, gameID);
+            send(resyncCommand);
+        } catch (IOException ex) {
+            throw new IOException("Failed to send resync command: " + ex.getMessage());
+        }
+    }
+
     public void leaveGame(String authToken, Integer gameID) throws IOException {
         try {
             UserGameCommand leaveCommand = new UserGameCommand(UserGameCommand.CommandType.LEAVE, authToken, gameID);
-            this.session.getBasicRemote().sendText(gson.toJson(leaveCommand));
+            send(leaveCommand);
         } catch (IOException ex) {
             throw new IOException("Failed to send leave command: " + ex.getMessage());
         }
@@ -71,12 +120,40 @@ public class WebSocketFacade extends Endpoint {
     public void resignGame(String authToken, Integer gameID) throws IOException {
         try {
             UserGameCommand resignCommand = new UserGameCommand(UserGameCommand.CommandType.RESIGN, authToken, gameID);
-            this.session.getBasicRemote().sendText(gson.toJson(resignCommand));
+            send(resignCommand);
         } catch (IOException ex) {
             throw new IOException("Failed to send resign command: " + ex.getMessage());
         }
     }
 
+    /**
+     * Asks for a snapshot of the lobby followed by a LOBBY message whenever a game is
+     * created, joined, left or finished.
+     */
+    public void subscribeLobby(String authToken) throws IOException {
+        try {
+            send(new UserGameCommand(UserGameCommand.CommandType.SUBSCRIBE_LOBBY, authToken, null));
+        } catch (IOException ex) {
+            throw new IOException("Failed to send lobby subscription: " + ex.getMessage());
+        }
+    }
+
+    private void send(UserGameCommand command) throws IOException {
+        if (binaryFrames) {
+            this.session.getBasicRemote().sendBinary(ByteBuffer.wrap(CommandCodec.encode(command)));
+        } else {
+            this.session.getBasicRemote().sendText(gson.toJson(command));
+        }
+    }
+
+    private void handleBinaryMessage(ByteBuffer message) {
+        try {
+            notificationHandler.notify(MessageCodec.decode(message));
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Error handling WebSocket message: " + ex.getMessage());
+        }
+    }
+
     private void handleMessage(String message) {
         try {
             com.google.gson.JsonObject jsonObject = gson.fromJson(message, com.google.gson.JsonObject.class);
@@ -94,6 +171,12 @@ public class WebSocketFacade extends Endpoint {
                 case "NOTIFICATION" -> {
                     serverMessage = gson.fromJson(message, NotificationMessage.class);
                 }
+                case "MOVE_MADE" -> {
+                    serverMessage = gson.fromJson(message, MoveMadeMessage.class);
+                }
+                case "LOBBY" -> {
+                    serverMessage = gson.fromJson(message, LobbyMessage.class);
+                }
                 default -> {
                     System.err.println("Unknown message type: " + messageType);
                     return;
@@ -111,7 +194,7 @@ public class WebSocketFacade extends Endpoint {
     public void makeMove(String authToken, Integer gameID, ChessMove move) throws IOException {
         try {
             MakeMoveCommand moveCommand = new MakeMoveCommand(authToken, gameID, move);
-            this.session.getBasicRemote().sendText(gson.toJson(moveCommand));
+            send(moveCommand);
         } catch (IOException ex) {
             throw new IOException("Failed to send move command: " + ex.getMessage());
         }
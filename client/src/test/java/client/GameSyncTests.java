@@ -0,0 +1,76 @@
+package client;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+import websocket.messages.MoveMadeMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSyncTests {
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+    private int resyncs;
+    private final GameSync sync = new GameSync(() -> resyncs++);
+
+    @Test
+    public void deltaAtOrBelowTheLoadedVersionIsDropped() throws Exception {
+        ChessGame afterE4 = played(E4);
+        sync.load(afterE4, 5);
+
+        assertEquals(GameSync.Outcome.IGNORED, sync.moveMade(delta(E4, new ChessGame(), 5)));
+        assertEquals(GameSync.Outcome.IGNORED, sync.moveMade(delta(E4, new ChessGame(), 4)));
+        assertSame(afterE4, sync.game());
+        assertEquals(0, resyncs);
+
+        assertEquals(GameSync.Outcome.APPLIED, sync.moveMade(delta(E5, afterE4, 6)));
+        assertEquals(ChessGame.TeamColor.WHITE, sync.game().getTeamTurn());
+        assertEquals(GameSync.Outcome.IGNORED, sync.moveMade(delta(E5, afterE4, 6)));
+    }
+
+    @Test
+    public void hashMismatchRequestsExactlyOneResync() throws Exception {
+        sync.load(new ChessGame(), 1);
+        MoveMadeMessage wrongHash = new MoveMadeMessage(E4, MoveMadeMessage.GameStatus.IN_PROGRESS, 42, 2);
+
+        assertEquals(GameSync.Outcome.RESYNC_REQUESTED, sync.moveMade(wrongHash));
+        assertEquals(GameSync.Outcome.IGNORED, sync.moveMade(delta(E5, played(E4), 3)));
+        assertEquals(1, resyncs);
+        assertEquals(ChessGame.TeamColor.WHITE, sync.game().getTeamTurn());
+
+        ChessGame afterE4E5 = played(E4, E5);
+        sync.load(afterE4E5, 3);
+        assertEquals(GameSync.Outcome.APPLIED, sync.moveMade(delta(
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null), afterE4E5, 4)));
+        assertEquals(1, resyncs);
+    }
+
+    @Test
+    public void errorAllowsAnotherResync() throws Exception {
+        sync.load(new ChessGame(), 1);
+        MoveMadeMessage wrongHash = new MoveMadeMessage(E4, MoveMadeMessage.GameStatus.IN_PROGRESS, 42, 2);
+
+        sync.moveMade(wrongHash);
+        sync.errorReceived();
+        sync.moveMade(wrongHash);
+
+        assertEquals(2, resyncs);
+    }
+
+    private static MoveMadeMessage delta(ChessMove move, ChessGame before, int sequence) throws InvalidMoveException {
+        ChessGame after = new ChessGame(before);
+        after.makeMove(move);
+        return new MoveMadeMessage(move, MoveMadeMessage.GameStatus.IN_PROGRESS, after.positionHash(), sequence);
+    }
+
+    private static ChessGame played(ChessMove... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+}
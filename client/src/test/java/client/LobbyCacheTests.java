@@ -0,0 +1,27 @@
+package client;
+
+import model.GameData;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LobbyMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobbyCacheTests {
+
+    @Test
+    public void closedSubscriptionStopsServingTheLobby() {
+        LobbyCache lobby = new LobbyCache();
+        assertNull(lobby.games());
+
+        lobby.notify(new LobbyMessage(LobbyMessage.Change.SNAPSHOT,
+                List.of(new GameData(1, null, null, "game", null))));
+        assertEquals(1, lobby.games().length);
+        assertFalse(lobby.isClosed());
+
+        lobby.closed("1013 Try Again Later");
+        assertTrue(lobby.isClosed());
+        assertNull(lobby.games());
+    }
+}
@@ -0,0 +1,209 @@
+package dataaccess;
+
+import model.UserData;
+import model.AuthData;
+import model.GameData;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * DataAccess decorator that caps how many calls may be inside the wrapped store at once.
+ * Callers beyond the limit wait for a permit. On virtual threads that wait is cheap, and it
+ * keeps a spike of requests from opening more database connections than MySQL will accept
+ * or pinning every carrier thread inside the JDBC driver's synchronized socket reads.
+ */
+public class BoundedDataAccess implements DataAccess, AutoCloseable {
+    private static final int LISTING_PAGE_SIZE = 200;
+
+    private final DataAccess delegate;
+    private final Semaphore permits;
+
+    public BoundedDataAccess(DataAccess delegate, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        call(() -> {
+            delegate.clear();
+            return null;
+        });
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        call(() -> {
+            delegate.createUser(user);
+            return null;
+        });
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return call(() -> delegate.getUser(username));
+    }
+
+    @Override
+    public void createUsers(Collection<UserData> users) throws DataAccessException {
+        call(() -> {
+            delegate.createUsers(users);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean updatePassword(String username, String passwordHash) throws DataAccessException {
+        return call(() -> delegate.updatePassword(username, passwordHash));
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        call(() -> {
+            delegate.createAuth(auth);
+            return null;
+        });
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return call(() -> delegate.getAuth(authToken));
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        call(() -> {
+            delegate.deleteAuth(authToken);
+            return null;
+        });
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException {
+        call(() -> {
+            delegate.createAuths(auths);
+            return null;
+        });
+    }
+
+    @Override
+    public int deleteAuths(Collection<String> authTokens) throws DataAccessException {
+        return call(() -> delegate.deleteAuths(authTokens));
+    }
+
+    @Override
+    public boolean touchAuth(String authToken, long lastUsed) throws DataAccessException {
+        return call(() -> delegate.touchAuth(authToken, lastUsed));
+    }
+
+    @Override
+    public int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException {
+        return call(() -> delegate.deleteExpiredAuths(cutoff, limit));
+    }
+
+    @Override
+    public int countAuths() throws DataAccessException {
+        return call(delegate::countAuths);
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException {
+        return call(() -> delegate.createGame(game));
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return call(() -> delegate.getGame(gameID));
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException {
+        return call(() -> delegate.createGames(games));
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        return call(delegate::listGames);
+    }
+
+    @Override
+    public Collection<GameData> listActiveGames() throws DataAccessException {
+        return call(delegate::listActiveGames);
+    }
+
+    /*
+     * Reads the listing a page at a time and visits each page without a permit. The visitor
+     * is usually writing to a client, and a slow one must not keep other calls, such as
+     * WebSocket moves, waiting for the store.
+     */
+    @Override
+    public void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException {
+        int afterGameID = 0;
+        List<GameData> page;
+        do {
+            int after = afterGameID;
+            page = call(() -> delegate.listGamesAfter(after, LISTING_PAGE_SIZE, activeOnly));
+            for (GameData game : page) {
+                visitor.visit(game);
+                afterGameID = game.getGameID();
+            }
+        } while (page.size() == LISTING_PAGE_SIZE);
+    }
+
+    @Override
+    public List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException {
+        return call(() -> delegate.listGamesAfter(afterGameID, limit, activeOnly));
+    }
+
+    @Override
+    public boolean updateGame(GameData game) throws DataAccessException {
+        return call(() -> delegate.updateGame(game));
+    }
+
+    @Override
+    public long gamesVersion() throws DataAccessException {
+        return call(delegate::gamesVersion);
+    }
+
+    @Override
+    public long lastCleared() throws DataAccessException {
+        return call(delegate::lastCleared);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * @return the number of calls that could start right now without waiting
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private <T> T call(Call<T> operation) throws DataAccessException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for database access", e);
+        }
+        try {
+            return operation.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private interface Call<T> {
+        T run() throws DataAccessException;
+    }
+}
@@ -3,20 +3,105 @@ package dataaccess;
 import model.UserData;
 import model.AuthData;
 import model.GameData;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 
 public interface DataAccess {
     void clear() throws DataAccessException;
 
     void createUser(UserData user) throws DataAccessException;
     UserData getUser(String username) throws DataAccessException;
+    void createUsers(Collection<UserData> users) throws DataAccessException;
+
+    /**
+     * Replaces a user's stored password hash, e.g. after rehashing it at a different cost.
+     *
+     * @return false if the user does not exist
+     */
+    boolean updatePassword(String username, String passwordHash) throws DataAccessException;
 
     void createAuth(AuthData auth) throws DataAccessException;
     AuthData getAuth(String authToken) throws DataAccessException;
     void deleteAuth(String authToken) throws DataAccessException;
+    void createAuths(Collection<AuthData> auths) throws DataAccessException;
+
+    /**
+     * @return the number of tokens that existed and were removed
+     */
+    int deleteAuths(Collection<String> authTokens) throws DataAccessException;
+
+    /**
+     * Moves a token's last-used time forward, extending its sliding expiry.
+     *
+     * @return false if the token no longer exists
+     */
+    boolean touchAuth(String authToken, long lastUsed) throws DataAccessException;
+
+    /**
+     * Deletes at most limit tokens last used before cutoff, so callers can expire a large
+     * backlog in short batches.
+     *
+     * @return the number of tokens deleted
+     */
+    int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException;
+
+    int countAuths() throws DataAccessException;
 
     int createGame(GameData game) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
+
+    /**
+     * @return the generated game IDs, in the same order as games
+     */
+    List<Integer> createGames(List<GameData> games) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
-    void updateGame(GameData game) throws DataAccessException;
-}
\ No newline at end of file
+
+    /**
+     * @return the games that do not have a result yet
+     */
+    Collection<GameData> listActiveGames() throws DataAccessException;
+
+    /**
+     * Hands games to visitor one at a time instead of collecting them first, so a listing of
+     * any size can be written out in constant memory. Stops at the first IOException.
+     *
+     * @param activeOnly visit only games that do not have a result yet
+     */
+    void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException;
+
+    /**
+     * One page of a listing by game ID, for callers that must not hold the store while they
+     * handle each game. Pass the last ID of one page to get the next.
+     *
+     * @return up to limit games with IDs above afterGameID, in ID order
+     */
+    List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException;
+
+    /**
+     * Compare-and-set update of a game row. The write is applied only if the stored
+     * version still equals game.getVersion(), and the stored version is then incremented.
+     *
+     * @return false if another writer updated the game first; callers should re-read and retry
+     * @throws DataAccessException if the game does not exist
+     */
+    boolean updateGame(GameData game) throws DataAccessException;
+
+    /**
+     * A counter that moves forward, after the fact, whenever a game is created, updated or
+     * cleared. Reading it before listing games and seeing the same value again later means
+     * the listing has not changed in between.
+     */
+    long gamesVersion() throws DataAccessException;
+
+    /**
+     * @return when clear() last ran, in epoch milliseconds, or 0 if it never has. Kept with
+     *         the data, so every server sharing a store sees the same value.
+     */
+    long lastCleared() throws DataAccessException;
+
+    @FunctionalInterface
+    interface GameVisitor {
+        void visit(GameData game) throws IOException;
+    }
+}
@@ -9,6 +9,87 @@ public class DatabaseManager {
     private static String dbPassword;
     private static String connectionUrl;
 
+    // MySQL errors for an index or column that already exists
+    private static final int DUPLICATE_KEY_NAME = 1061;
+    private static final int DUPLICATE_COLUMN_NAME = 1060;
+
+    private static final String CREATE_SCHEMA_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT NOT NULL PRIMARY KEY,
+                appliedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )""";
+
+    /*
+     * Schema migrations, indexed by version - 1. Never edit a step that has shipped;
+     * append a new one instead.
+     */
+    private static final String[][] MIGRATIONS = {
+            // 1: base tables
+            {
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        username VARCHAR(255) NOT NULL PRIMARY KEY,
+                        password VARCHAR(255) NOT NULL,
+                        email VARCHAR(255) NOT NULL
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS games (
+                        gameID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                        whiteUsername VARCHAR(255),
+                        blackUsername VARCHAR(255),
+                        gameName VARCHAR(255) NOT NULL,
+                        gameState TEXT
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS auths (
+                        authToken VARCHAR(255) NOT NULL PRIMARY KEY,
+                        username VARCHAR(255) NOT NULL
+                    )"""
+            },
+            // 2: indexes for player-scoped lookups and a compact binary game state
+            {
+                    "CREATE INDEX idx_auths_username ON auths (username)",
+                    "CREATE INDEX idx_games_white ON games (whiteUsername)",
+                    "CREATE INDEX idx_games_black ON games (blackUsername)",
+                    "ALTER TABLE games MODIFY gameState MEDIUMBLOB"
+            },
+            // 3: row version for optimistic concurrency on games
+            {
+                    "ALTER TABLE games ADD COLUMN version INT NOT NULL DEFAULT 0"
+            },
+            // 4: persisted game-over state, indexed so active-game queries skip finished games
+            {
+                    "ALTER TABLE games ADD COLUMN result VARCHAR(16) NULL, ADD COLUMN termination VARCHAR(16) NULL",
+                    "CREATE INDEX idx_games_result ON games (result)"
+            },
+            // 5: last use of each token, for sliding expiry; existing tokens start their TTL now
+            {
+                    "ALTER TABLE auths ADD COLUMN lastUsed BIGINT NOT NULL DEFAULT 0",
+                    "UPDATE auths SET lastUsed = UNIX_TIMESTAMP() * 1000",
+                    "CREATE INDEX idx_auths_last_used ON auths (lastUsed)"
+            },
+            // 6: change counter for the games table, so unchanged listings can be answered with 304
+            {
+                    """
+                    CREATE TABLE IF NOT EXISTS games_version (
+                        id TINYINT NOT NULL PRIMARY KEY,
+                        version BIGINT NOT NULL
+                    )
+                    """,
+                    "INSERT IGNORE INTO games_version (id, version) VALUES (1, UNIX_TIMESTAMP() * 1000)"
+            },
+            // 7: time of the last clear, so every server can reject signed tokens issued before it
+            {
+                    """
+                    CREATE TABLE IF NOT EXISTS last_cleared (
+                        id TINYINT NOT NULL PRIMARY KEY,
+                        clearedAt BIGINT NOT NULL
+                    )
+                    """,
+                    "INSERT IGNORE INTO last_cleared (id, clearedAt) VALUES (1, 0)"
+            }
+    };
+
     /*
      * Load the database information for the db.properties file.
      */
@@ -29,6 +110,83 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Brings the schema up to the latest version. Each entry in MIGRATIONS is applied
+     * once, in order, and recorded in the schema_version table so that restarts and
+     * additional server instances only run the steps they have not seen yet.
+     */
+    static public void migrate() throws DataAccessException {
+        try (var conn = getConnection()) {
+            try (var preparedStatement = conn.prepareStatement(CREATE_SCHEMA_VERSION_TABLE)) {
+                preparedStatement.executeUpdate();
+            }
+            acquireMigrationLock(conn);
+            try {
+                int current = currentSchemaVersion(conn);
+                for (int version = current + 1; version <= MIGRATIONS.length; version++) {
+                    for (var statement : MIGRATIONS[version - 1]) {
+                        applyStep(conn, statement);
+                    }
+                    try (var preparedStatement = conn.prepareStatement("INSERT INTO schema_version (version) VALUES (?)")) {
+                        preparedStatement.setInt(1, version);
+                        preparedStatement.executeUpdate();
+                    }
+                }
+            } finally {
+                releaseMigrationLock(conn);
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to migrate database", ex);
+        }
+    }
+
+    // A migration that failed partway is not recorded, so the next start runs it again from
+    // the top. Indexes and columns it already added are left as they are.
+    private static void applyStep(Connection conn, String statement) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
+        } catch (SQLException ex) {
+            if (ex.getErrorCode() != DUPLICATE_KEY_NAME && ex.getErrorCode() != DUPLICATE_COLUMN_NAME) {
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * @return the highest migration version applied to the database, or 0 for a fresh database
+     */
+    static public int schemaVersion() throws DataAccessException {
+        try (var conn = getConnection()) {
+            return currentSchemaVersion(conn);
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to read schema version", ex);
+        }
+    }
+
+    private static int currentSchemaVersion(Connection conn) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             var resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    // MySQL DDL is not transactional, so a named lock keeps two servers starting at the
+    // same time from both applying the same migration.
+    private static void acquireMigrationLock(Connection conn) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement("SELECT GET_LOCK('chess_schema_migration', 30)");
+             var resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                throw new SQLException("Timed out waiting for schema migration lock");
+            }
+        }
+    }
+
+    private static void releaseMigrationLock(Connection conn) throws SQLException {
+        try (var preparedStatement = conn.prepareStatement("SELECT RELEASE_LOCK('chess_schema_migration')")) {
+            preparedStatement.execute();
+        }
+    }
+
     /**
      * Create a connection to the database and sets the catalog based upon the
      * properties specified in db.properties. Connections to the database should
@@ -72,6 +230,7 @@ public class DatabaseManager {
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        // Let the driver collapse JDBC batches into multi-row statements
+        connectionUrl = String.format("jdbc:mysql://%s:%d?rewriteBatchedStatements=true", host, port);
     }
 }
@@ -0,0 +1,579 @@
+package dataaccess;
+
+import com.google.gson.Gson;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MySQL-free durable storage. All reads are served from a MemoryDataAccess; every
+ * mutation is validated, appended to a write-ahead log as a single record and only then
+ * applied there, and the caller returns only once its record is on disk (group-committed
+ * with concurrent writers).
+ * <p>
+ * Every snapshotInterval records the log is rotated and a compact snapshot of the whole
+ * store is written in the background. Files live in one directory:
+ * snapshot-N.json holds the state as of the start of wal-N.log, so recovery loads the
+ * newest snapshot and replays wal-N.log onwards.
+ */
+public class DurableMemoryDataAccess implements DataAccess, AutoCloseable {
+    private static final Pattern WAL_FILE = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.json");
+
+    private final Gson gson = new Gson();
+    private final MemoryDataAccess memory = new MemoryDataAccess();
+    private final Path directory;
+    private final int snapshotInterval;
+    private final Object writeLock = new Object();
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final WriteAheadLog log;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private boolean snapshotPending;
+
+    public DurableMemoryDataAccess(Path directory) throws DataAccessException {
+        this(directory, 10_000, true);
+    }
+
+    /**
+     * @param snapshotInterval log records between snapshots
+     * @param fsync            false trades crash durability for write latency; the log is
+     *                         still flushed on rotation and close
+     */
+    public DurableMemoryDataAccess(Path directory, int snapshotInterval, boolean fsync) throws DataAccessException {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(directory);
+            int replayed = recover();
+            log = new WriteAheadLog(walPath(generation), fsync);
+            if (replayed > 0) {
+                synchronized (writeLock) {
+                    startSnapshot();
+                }
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            throw new DataAccessException("Unable to open data directory " + directory, ex);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        long seq;
+        synchronized (writeLock) {
+            seq = commit(LogRecord.clear(System.currentTimeMillis()));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        if (user == null) {
+            throw new DataAccessException("User cannot be null");
+        }
+        // Passwords end up on disk, so accept them only as MySqlDataAccess does
+        PasswordHashes.requireHashed(user.getPassword());
+        long seq;
+        synchronized (writeLock) {
+            if (memory.getUser(user.getUsername()) != null) {
+                throw new DataAccessException("User already exists");
+            }
+            seq = commit(LogRecord.putUsers(List.of(user)));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return memory.getUser(username);
+    }
+
+    @Override
+    public void createUsers(Collection<UserData> users) throws DataAccessException {
+        if (users == null) {
+            throw new DataAccessException("Users cannot be null");
+        }
+        List<UserData> batch = new ArrayList<>(users.size());
+        Set<String> usernames = new HashSet<>();
+        for (UserData user : users) {
+            if (user == null) {
+                throw new DataAccessException("User cannot be null");
+            }
+            if (!usernames.add(user.getUsername())) {
+                throw new DataAccessException("Error: already taken");
+            }
+            PasswordHashes.requireHashed(user.getPassword());
+            batch.add(user);
+        }
+        long seq;
+        synchronized (writeLock) {
+            for (UserData user : batch) {
+                if (memory.getUser(user.getUsername()) != null) {
+                    throw new DataAccessException("Error: already taken");
+                }
+            }
+            seq = commit(LogRecord.putUsers(batch));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public boolean updatePassword(String username, String passwordHash) throws DataAccessException {
+        if (username == null || passwordHash == null) {
+            throw new DataAccessException("Username and password cannot be null");
+        }
+        long seq;
+        synchronized (writeLock) {
+            UserData user = memory.getUser(username);
+            if (user == null) {
+                return false;
+            }
+            seq = commit(LogRecord.putUsers(List.of(new UserData(username, passwordHash, user.getEmail()))));
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        if (auth == null) {
+            throw new DataAccessException("Auth cannot be null");
+        }
+        long seq;
+        synchronized (writeLock) {
+            seq = commit(LogRecord.putAuths(List.of(auth)));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return memory.getAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("Auth token cannot be null");
+        }
+        long seq;
+        synchronized (writeLock) {
+            seq = commit(LogRecord.deleteAuths(List.of(authToken)));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException {
+        if (auths == null) {
+            throw new DataAccessException("Auths cannot be null");
+        }
+        Set<String> tokens = new HashSet<>();
+        for (AuthData auth : auths) {
+            if (auth == null) {
+                throw new DataAccessException("Auth cannot be null");
+            }
+            if (!tokens.add(auth.getAuthToken())) {
+                throw new DataAccessException("Error: auth token already exists");
+            }
+        }
+        long seq;
+        synchronized (writeLock) {
+            for (String token : tokens) {
+                if (memory.getAuth(token) != null) {
+                    throw new DataAccessException("Error: auth token already exists");
+                }
+            }
+            seq = commit(LogRecord.putAuths(new ArrayList<>(auths)));
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public int deleteAuths(Collection<String> authTokens) throws DataAccessException {
+        if (authTokens == null) {
+            throw new DataAccessException("Auth tokens cannot be null");
+        }
+        List<String> present = new ArrayList<>();
+        long seq;
+        synchronized (writeLock) {
+            for (String token : new HashSet<>(authTokens)) {
+                if (token != null && memory.getAuth(token) != null) {
+                    present.add(token);
+                }
+            }
+            if (present.isEmpty()) {
+                return 0;
+            }
+            seq = commit(LogRecord.deleteAuths(present));
+        }
+        awaitDurable(seq);
+        return present.size();
+    }
+
+    // Not awaited: losing a touch in a crash only makes that token expire a little sooner
+    @Override
+    public boolean touchAuth(String authToken, long lastUsed) throws DataAccessException {
+        synchronized (writeLock) {
+            AuthData auth = memory.getAuth(authToken);
+            if (auth == null) {
+                return false;
+            }
+            if (auth.getLastUsed() < lastUsed) {
+                commit(LogRecord.putAuths(List.of(auth.withLastUsed(lastUsed))));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException {
+        List<String> expired = new ArrayList<>();
+        long seq;
+        synchronized (writeLock) {
+            for (AuthData auth : memory.allAuths()) {
+                if (expired.size() >= limit) {
+                    break;
+                }
+                if (auth.getLastUsed() < cutoff) {
+                    expired.add(auth.getAuthToken());
+                }
+            }
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            seq = commit(LogRecord.deleteAuths(expired));
+        }
+        awaitDurable(seq);
+        return expired.size();
+    }
+
+    @Override
+    public int countAuths() {
+        return memory.countAuths();
+    }
+
+    @Override
+    public long gamesVersion() {
+        return memory.gamesVersion();
+    }
+
+    @Override
+    public long lastCleared() {
+        return memory.lastCleared();
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException {
+        return createGames(Collections.singletonList(game)).get(0);
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException {
+        if (games == null) {
+            throw new DataAccessException("Games cannot be null");
+        }
+        for (GameData game : games) {
+            if (game == null) {
+                throw new DataAccessException("Game cannot be null");
+            }
+        }
+        List<Integer> gameIDs = new ArrayList<>(games.size());
+        long seq;
+        synchronized (writeLock) {
+            // Writers are serialized here, so the IDs cannot be taken before the record is applied
+            int gameID = memory.peekNextGameID();
+            List<GameData> created = new ArrayList<>(games.size());
+            for (GameData game : games) {
+                created.add(MemoryDataAccess.copyOf(game, gameID, 0));
+                gameIDs.add(gameID++);
+            }
+            seq = commit(LogRecord.putGames(created));
+        }
+        awaitDurable(seq);
+        return gameIDs;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return memory.getGame(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        return memory.listGames();
+    }
+
+    @Override
+    public Collection<GameData> listActiveGames() throws DataAccessException {
+        return memory.listActiveGames();
+    }
+
+    @Override
+    public void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException {
+        memory.forEachGame(activeOnly, visitor);
+    }
+
+    @Override
+    public List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException {
+        return memory.listGamesAfter(afterGameID, limit, activeOnly);
+    }
+
+    @Override
+    public boolean updateGame(GameData game) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Game cannot be null");
+        }
+        long seq;
+        synchronized (writeLock) {
+            GameData current = memory.getGame(game.getGameID());
+            if (current == null) {
+                throw new DataAccessException("Game not found");
+            }
+            if (current.getVersion() != game.getVersion()) {
+                return false;
+            }
+            seq = commit(LogRecord.putGames(List.of(
+                    MemoryDataAccess.copyOf(game, game.getGameID(), game.getVersion() + 1))));
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        // Let an in-flight snapshot finish so its log generations can be cleaned up
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+            log.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted closing write-ahead log", ex);
+        } catch (IOException ex) {
+            throw new DataAccessException("Unable to close write-ahead log", ex);
+        }
+    }
+
+    private enum Op {
+        CLEAR,
+        DELETE_AUTHS,
+        PUT_USERS,
+        PUT_AUTHS,
+        PUT_GAMES
+    }
+
+    private record LogRecord(Op op, List<String> authTokens, List<UserData> users, List<AuthData> auths,
+                             List<GameData> games, long clearedAt) {
+        static LogRecord clear(long clearedAt) {
+            return new LogRecord(Op.CLEAR, null, null, null, null, clearedAt);
+        }
+
+        static LogRecord putUsers(List<UserData> users) {
+            return new LogRecord(Op.PUT_USERS, null, users, null, null, 0);
+        }
+
+        static LogRecord putAuths(List<AuthData> auths) {
+            return new LogRecord(Op.PUT_AUTHS, null, null, auths, null, 0);
+        }
+
+        static LogRecord deleteAuths(List<String> authTokens) {
+            return new LogRecord(Op.DELETE_AUTHS, authTokens, null, null, null, 0);
+        }
+
+        static LogRecord putGames(List<GameData> games) {
+            return new LogRecord(Op.PUT_GAMES, null, null, null, games, 0);
+        }
+    }
+
+    private record Snapshot(int nextGameID, List<UserData> users, List<AuthData> auths, List<GameData> games,
+                            long lastCleared) {}
+
+    /*
+     * Called with writeLock held, once the change has been validated. The record is logged
+     * before memory changes, so a failed append leaves nothing visible that a restart would
+     * lose. Once it is logged the write has happened, and a failure to start a snapshot
+     * only delays compaction.
+     */
+    private long commit(LogRecord record) throws DataAccessException {
+        long seq;
+        try {
+            seq = log.append(gson.toJson(record).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new DataAccessException("Unable to append to write-ahead log", ex);
+        }
+        apply(record);
+        if (++recordsSinceSnapshot >= snapshotInterval && !snapshotPending) {
+            try {
+                startSnapshot();
+            } catch (IOException ex) {
+                recordsSinceSnapshot = 0;
+                System.err.println("Error starting snapshot: " + ex.getMessage());
+            }
+        }
+        return seq;
+    }
+
+    private void awaitDurable(long seq) throws DataAccessException {
+        try {
+            log.awaitDurable(seq);
+        } catch (IOException ex) {
+            throw new DataAccessException("Unable to sync write-ahead log", ex);
+        }
+    }
+
+    /*
+     * Called with writeLock held. Captures the state and switches to a fresh log
+     * generation while writers are blocked, then serializes the snapshot off-thread.
+     */
+    private void startSnapshot() throws IOException {
+        Snapshot snapshot;
+        try {
+            snapshot = new Snapshot(memory.peekNextGameID(), new ArrayList<>(memory.allUsers()),
+                    new ArrayList<>(memory.allAuths()), new ArrayList<>(memory.listGames()), memory.lastCleared());
+        } catch (DataAccessException ex) {
+            throw new IOException(ex);
+        }
+        long snapshotGeneration = generation + 1;
+        log.rotate(walPath(snapshotGeneration));
+        generation = snapshotGeneration;
+        recordsSinceSnapshot = 0;
+        snapshotPending = true;
+        snapshotWriter.execute(() -> writeSnapshot(snapshot, snapshotGeneration));
+    }
+
+    private void writeSnapshot(Snapshot snapshot, long snapshotGeneration) {
+        try {
+            Path target = directory.resolve("snapshot-" + snapshotGeneration + ".json");
+            Path temp = directory.resolve("snapshot-" + snapshotGeneration + ".json.tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+                gson.toJson(snapshot, writer);
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteGenerationsBefore(snapshotGeneration);
+        } catch (IOException ex) {
+            System.err.println("Error writing snapshot: " + ex.getMessage());
+        } finally {
+            synchronized (writeLock) {
+                snapshotPending = false;
+            }
+        }
+    }
+
+    private void deleteGenerationsBefore(long keep) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                long fileGeneration = generationOf(file, WAL_FILE);
+                if (fileGeneration < 0) {
+                    fileGeneration = generationOf(file, SNAPSHOT_FILE);
+                }
+                if (fileGeneration >= 0 && fileGeneration < keep) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /*
+     * Loads the newest snapshot and replays every log generation from it onwards.
+     * Leaves generation pointing at a fresh, unused log file.
+     */
+    private int recover() throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                long snapshotGeneration = generationOf(file, SNAPSHOT_FILE);
+                if (snapshotGeneration >= 0) {
+                    snapshots.put(snapshotGeneration, file);
+                }
+                long logGeneration = generationOf(file, WAL_FILE);
+                if (logGeneration >= 0) {
+                    logs.put(logGeneration, file);
+                }
+            }
+        }
+
+        long base = 0;
+        if (!snapshots.isEmpty()) {
+            base = snapshots.lastKey();
+            try (Reader reader = Files.newBufferedReader(snapshots.lastEntry().getValue(), StandardCharsets.UTF_8)) {
+                restore(gson.fromJson(reader, Snapshot.class));
+            }
+        }
+
+        int replayed = 0;
+        for (Path file : logs.tailMap(base, true).values()) {
+            replayed += WriteAheadLog.replay(file, payload ->
+                    apply(gson.fromJson(new String(payload, StandardCharsets.UTF_8), LogRecord.class)));
+        }
+        generation = Math.max(base, logs.isEmpty() ? 0 : logs.lastKey()) + 1;
+        return replayed;
+    }
+
+    private void restore(Snapshot snapshot) {
+        snapshot.users().forEach(memory::restoreUser);
+        snapshot.auths().forEach(memory::restoreAuth);
+        snapshot.games().forEach(memory::restoreGame);
+        memory.restoreNextGameID(snapshot.nextGameID());
+        memory.restoreLastCleared(snapshot.lastCleared());
+    }
+
+    private void apply(LogRecord record) {
+        try {
+            switch (record.op()) {
+                case CLEAR -> {
+                    memory.clear();
+                    memory.restoreLastCleared(record.clearedAt());
+                }
+                case DELETE_AUTHS -> memory.deleteAuths(record.authTokens());
+                case PUT_USERS -> record.users().forEach(memory::restoreUser);
+                case PUT_AUTHS -> record.auths().forEach(memory::restoreAuth);
+                case PUT_GAMES -> record.games().forEach(memory::restoreGame);
+            }
+        } catch (DataAccessException ex) {
+            throw new UncheckedIOException(new IOException("Unable to replay log record", ex));
+        }
+    }
+
+    private Path walPath(long walGeneration) {
+        return directory.resolve("wal-" + walGeneration + ".log");
+    }
+
+    private static long generationOf(Path file, Pattern pattern) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,55 @@
+package dataaccess;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converts a ChessGame to and from the bytes stored in the games.gameState column.
+ * New rows are written as gzipped JSON; rows written before the column became binary
+ * still hold plain JSON text and are read as-is.
+ */
+final class GameStateCodec {
+    private static final Gson GSON = new Gson();
+
+    private GameStateCodec() {
+    }
+
+    static byte[] encode(ChessGame game) throws DataAccessException {
+        var bytes = new ByteArrayOutputStream(512);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            GSON.toJson(game, writer);
+        } catch (IOException ex) {
+            throw new DataAccessException("Unable to encode game state", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ChessGame decode(byte[] data) throws DataAccessException {
+        if (data == null) {
+            return null;
+        }
+        if (!isGzip(data)) {
+            return GSON.fromJson(new String(data, StandardCharsets.UTF_8), ChessGame.class);
+        }
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(data)), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, ChessGame.class);
+        } catch (IOException ex) {
+            throw new DataAccessException("Unable to decode game state", ex);
+        }
+    }
+
+    private static boolean isGzip(byte[] data) {
+        return data.length >= 2 && (data[0] & 0xff) == 0x1f && (data[1] & 0xff) == 0x8b;
+    }
+}
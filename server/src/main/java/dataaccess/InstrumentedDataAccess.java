@@ -0,0 +1,268 @@
+package dataaccess;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.UserData;
+import model.AuthData;
+import model.GameData;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataAccess decorator that records, per method, how often it is called, how often it
+ * fails and how long it takes, in a MetricsRegistry. Calls slower than the slow threshold
+ * are also logged with their arguments, leaving out passwords and tokens.
+ * <p>
+ * Game state sizes are measured as the gzipped bytes MySQL would store. Encoding a game
+ * costs about as much as the write itself, so only one in payloadSampleEvery game reads
+ * and writes is measured.
+ * <p>
+ * It works over any backend. Wrapped around a BoundedDataAccess, the times include the
+ * wait for a permit, which is what the caller actually sees.
+ */
+public class InstrumentedDataAccess implements DataAccess, AutoCloseable {
+    private final DataAccess delegate;
+    private final MetricsRegistry metrics;
+    private final long slowNanos;
+    private final int payloadSampleEvery;
+    private final AtomicLong payloads = new AtomicLong();
+
+    /**
+     * @param slowThreshold      calls taking at least this long are logged
+     * @param payloadSampleEvery measure one in this many game states, or 0 for none
+     */
+    public InstrumentedDataAccess(DataAccess delegate, MetricsRegistry metrics, Duration slowThreshold,
+                                  int payloadSampleEvery) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.slowNanos = slowThreshold.toNanos();
+        this.payloadSampleEvery = payloadSampleEvery;
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        call("clear", "", () -> {
+            delegate.clear();
+            return null;
+        });
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        call("createUser", user == null ? "" : user.getUsername(), () -> {
+            delegate.createUser(user);
+            return null;
+        });
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return call("getUser", username, () -> delegate.getUser(username));
+    }
+
+    @Override
+    public void createUsers(Collection<UserData> users) throws DataAccessException {
+        call("createUsers", count(users, "users"), () -> {
+            delegate.createUsers(users);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean updatePassword(String username, String passwordHash) throws DataAccessException {
+        return call("updatePassword", username, () -> delegate.updatePassword(username, passwordHash));
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        call("createAuth", auth == null ? "" : auth.getUsername(), () -> {
+            delegate.createAuth(auth);
+            return null;
+        });
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return call("getAuth", "", () -> delegate.getAuth(authToken));
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        call("deleteAuth", "", () -> {
+            delegate.deleteAuth(authToken);
+            return null;
+        });
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException {
+        call("createAuths", count(auths, "tokens"), () -> {
+            delegate.createAuths(auths);
+            return null;
+        });
+    }
+
+    @Override
+    public int deleteAuths(Collection<String> authTokens) throws DataAccessException {
+        return call("deleteAuths", count(authTokens, "tokens"), () -> delegate.deleteAuths(authTokens));
+    }
+
+    @Override
+    public boolean touchAuth(String authToken, long lastUsed) throws DataAccessException {
+        return call("touchAuth", "", () -> delegate.touchAuth(authToken, lastUsed));
+    }
+
+    @Override
+    public int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException {
+        return call("deleteExpiredAuths", "limit " + limit, () -> delegate.deleteExpiredAuths(cutoff, limit));
+    }
+
+    @Override
+    public int countAuths() throws DataAccessException {
+        return call("countAuths", "", delegate::countAuths);
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException {
+        recordPayload("createGame", game);
+        return call("createGame", game == null ? "" : game.getGameName(), () -> delegate.createGame(game));
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData game = call("getGame", "game " + gameID, () -> delegate.getGame(gameID));
+        recordPayload("getGame", game);
+        return game;
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException {
+        return call("createGames", count(games, "games"), () -> delegate.createGames(games));
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        Collection<GameData> games = call("listGames", "", delegate::listGames);
+        rows("listGames").record(games.size());
+        return games;
+    }
+
+    @Override
+    public Collection<GameData> listActiveGames() throws DataAccessException {
+        Collection<GameData> games = call("listActiveGames", "", delegate::listActiveGames);
+        rows("listActiveGames").record(games.size());
+        return games;
+    }
+
+    // Times only the delegate's reads; the visitor's time, e.g. writing to a slow client, has its own histogram
+    @Override
+    public void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException {
+        long[] visited = new long[1];
+        long[] visiting = new long[1];
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.forEachGame(activeOnly, game -> {
+                visited[0]++;
+                long visitStart = System.nanoTime();
+                try {
+                    visitor.visit(game);
+                } finally {
+                    visiting[0] += System.nanoTime() - visitStart;
+                }
+            });
+            failed = false;
+        } finally {
+            finish("forEachGame", activeOnly ? "active only" : "", start + visiting[0], failed);
+            metrics.histogram("chess_db_visitor_seconds", "Time listing callers spent handling the games they read",
+                    1e-6, "method", "forEachGame").record(visiting[0] / 1_000);
+            rows("forEachGame").record(visited[0]);
+        }
+    }
+
+    @Override
+    public List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException {
+        List<GameData> games = call("listGamesAfter", "after " + afterGameID + ", limit " + limit,
+                () -> delegate.listGamesAfter(afterGameID, limit, activeOnly));
+        rows("listGamesAfter").record(games.size());
+        return games;
+    }
+
+    @Override
+    public boolean updateGame(GameData game) throws DataAccessException {
+        recordPayload("updateGame", game);
+        return call("updateGame", game == null ? "" : "game " + game.getGameID() + " at version " + game.getVersion(),
+                () -> delegate.updateGame(game));
+    }
+
+    @Override
+    public long gamesVersion() throws DataAccessException {
+        return call("gamesVersion", "", delegate::gamesVersion);
+    }
+
+    @Override
+    public long lastCleared() throws DataAccessException {
+        return call("lastCleared", "", delegate::lastCleared);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private <T> T call(String method, String detail, Call<T> operation) throws DataAccessException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = operation.run();
+            failed = false;
+            return result;
+        } finally {
+            finish(method, detail, start, failed);
+        }
+    }
+
+    private void finish(String method, String detail, long start, boolean failed) {
+        long elapsed = System.nanoTime() - start;
+        metrics.counter("chess_db_calls_total", "DataAccess calls by method and outcome",
+                "method", method, "outcome", failed ? "error" : "ok").increment();
+        metrics.histogram("chess_db_call_seconds", "DataAccess call latency by method", 1e-6,
+                "method", method).record(elapsed / 1_000);
+        if (elapsed >= slowNanos) {
+            metrics.counter("chess_db_slow_calls_total", "DataAccess calls over the slow threshold",
+                    "method", method).increment();
+            System.err.printf("Slow DataAccess call: %s(%s) took %d ms%s%n", method, detail, elapsed / 1_000_000,
+                    failed ? " and failed" : "");
+        }
+    }
+
+    private static String count(Collection<?> items, String what) {
+        return items == null ? "" : items.size() + " " + what;
+    }
+
+    private Histogram rows(String method) {
+        return metrics.histogram("chess_db_rows", "Games returned per listing call", 1, "method", method);
+    }
+
+    private void recordPayload(String method, GameData game) {
+        if (game == null || game.getGame() == null || payloadSampleEvery <= 0
+                || payloads.getAndIncrement() % payloadSampleEvery != 0) {
+            return;
+        }
+        try {
+            metrics.histogram("chess_db_game_state_bytes", "Stored size of sampled game states", 1,
+                    "method", method).record(GameStateCodec.encode(game.getGame()).length);
+        } catch (DataAccessException e) {
+            // The real call will report the same problem
+        }
+    }
+
+    private interface Call<T> {
+        T run() throws DataAccessException;
+    }
+}
@@ -1,24 +1,53 @@
 package dataaccess;
 
+import chess.ChessGame;
 import model.UserData;
 import model.GameData;
 import model.AuthData;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * In-memory DataAccess that is safe to share between Spark's and Jetty's handler threads.
+ * Games are copied on the way in and out, so callers never share a mutable ChessGame with
+ * the store or with each other, and updates to a game are serialized by a lock stripe.
+ */
 public class MemoryDataAccess implements DataAccess {
-    private final Map<String, UserData> users = new HashMap<>();
-    private final Map<String, AuthData> authTokens = new HashMap<>();
-    private final Map<Integer, GameData> games = new HashMap<>();
-    private int nextGameID = 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<String, UserData> users = new ConcurrentHashMap<>();
+    private final Map<String, AuthData> authTokens = new ConcurrentHashMap<>();
+    // Sorted so a listing can resume after the last ID it saw
+    private final ConcurrentNavigableMap<Integer, GameData> games = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+    // Starts from the clock so a version seen before a restart is never handed out again
+    private final AtomicLong gamesVersion = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Object[] gameLocks = new Object[LOCK_STRIPES];
+    private volatile long lastCleared;
+
+    public MemoryDataAccess() {
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new Object();
+        }
+    }
 
     @Override
     public void clear() throws DataAccessException {
         users.clear();
         authTokens.clear();
         games.clear();
-        nextGameID = 1;
+        nextGameID.set(1);
+        gamesVersion.incrementAndGet();
+        lastCleared = System.currentTimeMillis();
     }
 
     @Override
@@ -26,10 +55,18 @@ public class MemoryDataAccess implements DataAccess {
         if (user == null) {
             throw new DataAccessException("User cannot be null");
         }
-        if (users.containsKey(user.getUsername())) {
+        if (users.putIfAbsent(user.getUsername(), user) != null) {
             throw new DataAccessException("User already exists");
         }
-        users.put(user.getUsername(), user);
+    }
+
+    @Override
+    public boolean updatePassword(String username, String passwordHash) throws DataAccessException {
+        if (username == null || passwordHash == null) {
+            throw new DataAccessException("Username and password cannot be null");
+        }
+        return users.computeIfPresent(username,
+                (name, user) -> new UserData(name, passwordHash, user.getEmail())) != null;
     }
 
     @Override
@@ -40,6 +77,31 @@ public class MemoryDataAccess implements DataAccess {
         return users.get(username);
     }
 
+    @Override
+    public void createUsers(Collection<UserData> newUsers) throws DataAccessException {
+        if (newUsers == null) {
+            throw new DataAccessException("Users cannot be null");
+        }
+        Map<String, UserData> batch = new HashMap<>();
+        for (UserData user : newUsers) {
+            if (user == null) {
+                throw new DataAccessException("User cannot be null");
+            }
+            if (batch.putIfAbsent(user.getUsername(), user) != null) {
+                throw new DataAccessException("Error: already taken");
+            }
+        }
+        // Claim each name atomically and undo our own inserts if another writer got there first
+        List<String> inserted = new ArrayList<>(batch.size());
+        for (UserData user : batch.values()) {
+            if (users.putIfAbsent(user.getUsername(), user) != null) {
+                inserted.forEach(users::remove);
+                throw new DataAccessException("Error: already taken");
+            }
+            inserted.add(user.getUsername());
+        }
+    }
+
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
         if (auth == null) {
@@ -64,32 +126,233 @@ public class MemoryDataAccess implements DataAccess {
         authTokens.remove(authToken);
     }
 
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException {
+        if (auths == null) {
+            throw new DataAccessException("Auths cannot be null");
+        }
+        Map<String, AuthData> batch = new HashMap<>();
+        for (AuthData auth : auths) {
+            if (auth == null) {
+                throw new DataAccessException("Auth cannot be null");
+            }
+            if (batch.putIfAbsent(auth.getAuthToken(), auth) != null) {
+                throw new DataAccessException("Error: auth token already exists");
+            }
+        }
+        // Claim each token atomically and undo our own inserts if it is already in use
+        List<String> inserted = new ArrayList<>(batch.size());
+        for (AuthData auth : batch.values()) {
+            if (authTokens.putIfAbsent(auth.getAuthToken(), auth) != null) {
+                inserted.forEach(authTokens::remove);
+                throw new DataAccessException("Error: auth token already exists");
+            }
+            inserted.add(auth.getAuthToken());
+        }
+    }
+
+    @Override
+    public int deleteAuths(Collection<String> tokens) throws DataAccessException {
+        if (tokens == null) {
+            throw new DataAccessException("Auth tokens cannot be null");
+        }
+        int deleted = 0;
+        for (String token : tokens) {
+            if (token != null && authTokens.remove(token) != null) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean touchAuth(String authToken, long lastUsed) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("Auth token cannot be null");
+        }
+        return authTokens.computeIfPresent(authToken,
+                (token, auth) -> auth.getLastUsed() >= lastUsed ? auth : auth.withLastUsed(lastUsed)) != null;
+    }
+
+    @Override
+    public int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException {
+        int deleted = 0;
+        for (AuthData auth : authTokens.values()) {
+            if (deleted >= limit) {
+                break;
+            }
+            // Conditional remove: a token touched since we looked at it survives
+            if (auth.getLastUsed() < cutoff && authTokens.remove(auth.getAuthToken(), auth)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public int countAuths() {
+        return authTokens.size();
+    }
+
     @Override
     public int createGame(GameData game) throws DataAccessException {
         if (game == null) {
             throw new DataAccessException("Game cannot be null");
         }
-        int gameID = nextGameID++;
-        GameData newGame = new GameData(gameID, game.getWhiteUsername(), game.getBlackUsername(), game.getGameName(), game.getGame());
-        games.put(gameID, newGame);
+        int gameID = nextGameID.getAndIncrement();
+        games.put(gameID, copyOf(game, gameID, 0));
+        gamesVersion.incrementAndGet();
         return gameID;
     }
 
+    @Override
+    public List<Integer> createGames(List<GameData> newGames) throws DataAccessException {
+        if (newGames == null) {
+            throw new DataAccessException("Games cannot be null");
+        }
+        for (GameData game : newGames) {
+            if (game == null) {
+                throw new DataAccessException("Game cannot be null");
+            }
+        }
+        // Reserve a contiguous block of IDs in one step
+        int gameID = nextGameID.getAndAdd(newGames.size());
+        Map<Integer, GameData> batch = new HashMap<>();
+        List<Integer> gameIDs = new ArrayList<>(newGames.size());
+        for (GameData game : newGames) {
+            batch.put(gameID, copyOf(game, gameID, 0));
+            gameIDs.add(gameID++);
+        }
+        games.putAll(batch);
+        gamesVersion.incrementAndGet();
+        return gameIDs;
+    }
+
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        return games.get(gameID);
+        GameData game = games.get(gameID);
+        return game == null ? null : copyOf(game, gameID, game.getVersion());
     }
 
     @Override
     public Collection<GameData> listGames() throws DataAccessException {
-        return games.values();
+        List<GameData> snapshot = new ArrayList<>(games.size());
+        for (GameData game : games.values()) {
+            snapshot.add(copyOf(game, game.getGameID(), game.getVersion()));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public Collection<GameData> listActiveGames() throws DataAccessException {
+        List<GameData> snapshot = new ArrayList<>();
+        for (GameData game : games.values()) {
+            if (!game.isOver()) {
+                snapshot.add(copyOf(game, game.getGameID(), game.getVersion()));
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException {
+        for (GameData game : games.values()) {
+            if (!activeOnly || !game.isOver()) {
+                visitor.visit(copyOf(game, game.getGameID(), game.getVersion()));
+            }
+        }
     }
 
     @Override
-    public void updateGame(GameData game) throws DataAccessException {
+    public List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException {
+        List<GameData> page = new ArrayList<>(Math.min(limit, 256));
+        for (GameData game : games.tailMap(afterGameID, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (!activeOnly || !game.isOver()) {
+                page.add(copyOf(game, game.getGameID(), game.getVersion()));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public boolean updateGame(GameData game) throws DataAccessException {
         if (game == null) {
             throw new DataAccessException("Game cannot be null");
         }
+        synchronized (lockFor(game.getGameID())) {
+            GameData current = games.get(game.getGameID());
+            if (current == null) {
+                throw new DataAccessException("Game not found");
+            }
+            if (current.getVersion() != game.getVersion()) {
+                return false;
+            }
+            games.put(game.getGameID(), copyOf(game, game.getGameID(), game.getVersion() + 1));
+            gamesVersion.incrementAndGet();
+            return true;
+        }
+    }
+
+    @Override
+    public long gamesVersion() {
+        return gamesVersion.get();
+    }
+
+    @Override
+    public long lastCleared() {
+        return lastCleared;
+    }
+
+    /*
+     * Raw access for DurableMemoryDataAccess: snapshotting, log replay and applying a logged
+     * record bypass the validation above, because DurableMemoryDataAccess validates a change
+     * before logging it.
+     */
+    Collection<UserData> allUsers() {
+        return new ArrayList<>(users.values());
+    }
+
+    Collection<AuthData> allAuths() {
+        return new ArrayList<>(authTokens.values());
+    }
+
+    int peekNextGameID() {
+        return nextGameID.get();
+    }
+
+    void restoreUser(UserData user) {
+        users.put(user.getUsername(), user);
+    }
+
+    void restoreAuth(AuthData auth) {
+        // Tokens logged before last-used times existed start their TTL now
+        authTokens.put(auth.getAuthToken(), auth.getLastUsed() == 0 ? auth.withLastUsed(System.currentTimeMillis()) : auth);
+    }
+
+    void restoreGame(GameData game) {
         games.put(game.getGameID(), game);
+        nextGameID.accumulateAndGet(game.getGameID() + 1, Math::max);
+        gamesVersion.incrementAndGet();
+    }
+
+    void restoreLastCleared(long clearedAt) {
+        lastCleared = clearedAt;
+    }
+
+    void restoreNextGameID(int gameID) {
+        nextGameID.accumulateAndGet(gameID, Math::max);
+    }
+
+    private Object lockFor(int gameID) {
+        return gameLocks[Math.floorMod(gameID, LOCK_STRIPES)];
+    }
+
+    static GameData copyOf(GameData game, int gameID, int version) {
+        ChessGame chessGame = game.getGame() == null ? null : new ChessGame(game.getGame());
+        return new GameData(gameID, game.getWhiteUsername(), game.getBlackUsername(), game.getGameName(), chessGame,
+                version, game.getResult(), game.getTermination());
     }
-}
\ No newline at end of file
+}
@@ -4,14 +4,22 @@ import model.UserData;
 import model.AuthData;
 import model.GameData;
 import chess.ChessGame;
-import org.mindrot.jbcrypt.BCrypt;
+import java.io.IOException;
 import java.util.Collection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import com.google.gson.Gson;
+import java.util.List;
 
 
 public class MySqlDataAccess implements DataAccess {
+    // Rows per executeBatch round trip for the bulk operations
+    private static final int BATCH_SIZE = 500;
+    private static final String GAME_COLUMNS =
+            "gameID, whiteUsername, blackUsername, gameName, gameState, version, result, termination";
+    private static final String BUMP_GAMES_VERSION = "UPDATE games_version SET version = version + 1 WHERE id = 1";
 
     public MySqlDataAccess() throws DataAccessException {
         configureDatabase();
@@ -19,63 +27,21 @@ public class MySqlDataAccess implements DataAccess {
 
     private void configureDatabase() throws DataAccessException {
         DatabaseManager.createDatabase();
-        createTables();
-    }
-
-    private void createTables() throws DataAccessException {
-        var createUsersTable = """
-            CREATE TABLE IF NOT EXISTS users (
-                username VARCHAR(255) NOT NULL PRIMARY KEY,
-                password VARCHAR(255) NOT NULL,
-                email VARCHAR(255) NOT NULL
-            )""";
-
-        var createGamesTable = """
-            CREATE TABLE IF NOT EXISTS games (
-                gameID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
-                whiteUsername VARCHAR(255),
-                blackUsername VARCHAR(255),
-                gameName VARCHAR(255) NOT NULL,
-                gameState TEXT
-            )""";
-
-        var createAuthsTable = """
-            CREATE TABLE IF NOT EXISTS auths (
-                authToken VARCHAR(255) NOT NULL PRIMARY KEY,
-                username VARCHAR(255) NOT NULL
-            )""";
-
-        try (var conn = DatabaseManager.getConnection()) {
-            try (var preparedStatement = conn.prepareStatement(createUsersTable)) {
-                preparedStatement.executeUpdate();
-            }
-            try (var preparedStatement = conn.prepareStatement(createGamesTable)) {
-                preparedStatement.executeUpdate();
-            }
-            try (var preparedStatement = conn.prepareStatement(createAuthsTable)) {
-                preparedStatement.executeUpdate();
-            }
-        } catch (Exception ex) {
-            throw new DataAccessException("Unable to configure database", ex);
-        }
+        DatabaseManager.migrate();
     }
 
     @Override
     public void clear() throws DataAccessException {
-        var clearUsers = "DELETE FROM users";
-        var clearGames = "DELETE FROM games";
-        var clearAuths = "DELETE FROM auths";
-
-        try (var conn = DatabaseManager.getConnection()) {
-            try (var preparedStatement = conn.prepareStatement(clearUsers)) {
-                preparedStatement.executeUpdate();
-            }
-            try (var preparedStatement = conn.prepareStatement(clearGames)) {
-                preparedStatement.executeUpdate();
-            }
-            try (var preparedStatement = conn.prepareStatement(clearAuths)) {
-                preparedStatement.executeUpdate();
-            }
+        try (var conn = DatabaseManager.getConnection();
+             var statement = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            statement.addBatch("DELETE FROM users");
+            statement.addBatch("DELETE FROM games");
+            statement.addBatch("DELETE FROM auths");
+            statement.addBatch(BUMP_GAMES_VERSION);
+            statement.addBatch("UPDATE last_cleared SET clearedAt = " + System.currentTimeMillis() + " WHERE id = 1");
+            statement.executeBatch();
+            conn.commit();
         } catch (SQLException ex) {
             throw new DataAccessException("Unable to clear database", ex);
         }
@@ -87,8 +53,7 @@ public class MySqlDataAccess implements DataAccess {
             throw new DataAccessException("User cannot be null");
         }
 
-        // Hash the password using BCrypt
-        String hashedPassword = BCrypt.hashpw(user.getPassword(), BCrypt.gensalt());
+        String hashedPassword = PasswordHashes.requireHashed(user.getPassword());
 
         var statement = "INSERT INTO users (username, password, email) VALUES (?, ?, ?)";
         try (var conn = DatabaseManager.getConnection()) {
@@ -132,18 +97,63 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
-    // Keep the other methods stubbed for now
+    @Override
+    public void createUsers(Collection<UserData> users) throws DataAccessException {
+        if (users == null) {
+            throw new DataAccessException("Users cannot be null");
+        }
+        for (UserData user : users) {
+            if (user == null) {
+                throw new DataAccessException("User cannot be null");
+            }
+            PasswordHashes.requireHashed(user.getPassword());
+        }
+
+        var statement = "INSERT INTO users (username, password, email) VALUES (?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            executeBatch(conn, statement, users, (preparedStatement, user) -> {
+                preparedStatement.setString(1, user.getUsername());
+                preparedStatement.setString(2, user.getPassword());
+                preparedStatement.setString(3, user.getEmail());
+            });
+        } catch (SQLException ex) {
+            if (ex.getErrorCode() == 1062) {
+                throw new DataAccessException("Error: already taken");
+            }
+            throw new DataAccessException("Unable to create users", ex);
+        }
+    }
+
+    @Override
+    public boolean updatePassword(String username, String passwordHash) throws DataAccessException {
+        if (username == null || passwordHash == null) {
+            throw new DataAccessException("Username and password cannot be null");
+        }
+
+        var statement = "UPDATE users SET password = ? WHERE username = ?";
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var preparedStatement = conn.prepareStatement(statement)) {
+                preparedStatement.setString(1, passwordHash);
+                preparedStatement.setString(2, username);
+                return preparedStatement.executeUpdate() == 1;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to update password", ex);
+        }
+    }
+
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
         if (auth == null) {
             throw new DataAccessException("Auth cannot be null");
         }
 
-        var statement = "INSERT INTO auths (authToken, username) VALUES (?, ?)";
+        var statement = "INSERT INTO auths (authToken, username, lastUsed) VALUES (?, ?, ?)";
         try (var conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.setString(1, auth.getAuthToken());
                 preparedStatement.setString(2, auth.getUsername());
+                preparedStatement.setLong(3, auth.getLastUsed());
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException ex) {
@@ -160,7 +170,7 @@ public class MySqlDataAccess implements DataAccess {
             throw new DataAccessException("Auth token cannot be null");
         }
 
-        var statement = "SELECT authToken, username FROM auths WHERE authToken = ?";
+        var statement = "SELECT authToken, username, lastUsed FROM auths WHERE authToken = ?";
         try (var conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.setString(1, authToken);
@@ -168,7 +178,8 @@ public class MySqlDataAccess implements DataAccess {
                     if (resultSet.next()) {
                         return new AuthData(
                                 resultSet.getString("authToken"),
-                                resultSet.getString("username")
+                                resultSet.getString("username"),
+                                resultSet.getLong("lastUsed")
                         );
                     }
                     return null;
@@ -197,59 +208,196 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException {
+        if (auths == null) {
+            throw new DataAccessException("Auths cannot be null");
+        }
+
+        var statement = "INSERT INTO auths (authToken, username, lastUsed) VALUES (?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            executeBatch(conn, statement, auths, (preparedStatement, auth) -> {
+                preparedStatement.setString(1, auth.getAuthToken());
+                preparedStatement.setString(2, auth.getUsername());
+                preparedStatement.setLong(3, auth.getLastUsed());
+            });
+        } catch (SQLException ex) {
+            if (ex.getErrorCode() == 1062) {
+                throw new DataAccessException("Error: auth token already exists");
+            }
+            throw new DataAccessException("Unable to create auths", ex);
+        }
+    }
+
+    @Override
+    public int deleteAuths(Collection<String> authTokens) throws DataAccessException {
+        if (authTokens == null) {
+            throw new DataAccessException("Auth tokens cannot be null");
+        }
+
+        // One DELETE ... IN (...) per chunk rather than one statement per token
+        List<String> tokens = new ArrayList<>(authTokens);
+        int deleted = 0;
+        try (var conn = DatabaseManager.getConnection()) {
+            for (int start = 0; start < tokens.size(); start += BATCH_SIZE) {
+                List<String> chunk = tokens.subList(start, Math.min(start + BATCH_SIZE, tokens.size()));
+                var statement = "DELETE FROM auths WHERE authToken IN (" + "?,".repeat(chunk.size() - 1) + "?)";
+                try (var preparedStatement = conn.prepareStatement(statement)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        preparedStatement.setString(i + 1, chunk.get(i));
+                    }
+                    deleted += preparedStatement.executeUpdate();
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to delete auths", ex);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean touchAuth(String authToken, long lastUsed) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("Auth token cannot be null");
+        }
+
+        // GREATEST keeps a late, older touch from moving the time backwards
+        var statement = "UPDATE auths SET lastUsed = GREATEST(lastUsed, ?) WHERE authToken = ?";
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var preparedStatement = conn.prepareStatement(statement)) {
+                preparedStatement.setLong(1, lastUsed);
+                preparedStatement.setString(2, authToken);
+                return preparedStatement.executeUpdate() == 1;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to touch auth", ex);
+        }
+    }
+
+    @Override
+    public int deleteExpiredAuths(long cutoff, int limit) throws DataAccessException {
+        // Served by idx_auths_last_used; LIMIT keeps each delete's locks short
+        var statement = "DELETE FROM auths WHERE lastUsed < ? LIMIT ?";
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var preparedStatement = conn.prepareStatement(statement)) {
+                preparedStatement.setLong(1, cutoff);
+                preparedStatement.setInt(2, limit);
+                return preparedStatement.executeUpdate();
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to delete expired auths", ex);
+        }
+    }
+
+    @Override
+    public int countAuths() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement("SELECT COUNT(*) FROM auths");
+             var resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to count auths", ex);
+        }
+    }
+
     @Override
     public int createGame(GameData game) throws DataAccessException {
         if (game == null) {
             throw new DataAccessException("Game cannot be null");
         }
 
-        // Serialize ChessGame to JSON
-        Gson gson = new Gson();
-        String gameStateJson = gson.toJson(game.getGame());
+        byte[] gameState = GameStateCodec.encode(game.getGame());
 
-        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameState) VALUES (?, ?, ?, ?)";
+        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameState, result, termination) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
         try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
             try (var preparedStatement = conn.prepareStatement(statement, java.sql.Statement.RETURN_GENERATED_KEYS)) {
                 preparedStatement.setString(1, game.getWhiteUsername());
                 preparedStatement.setString(2, game.getBlackUsername());
                 preparedStatement.setString(3, game.getGameName());
-                preparedStatement.setString(4, gameStateJson);
+                preparedStatement.setBytes(4, gameState);
+                preparedStatement.setString(5, nameOf(game.getResult()));
+                preparedStatement.setString(6, nameOf(game.getTermination()));
 
                 preparedStatement.executeUpdate();
 
                 try (var generatedKeys = preparedStatement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
-                    } else {
+                    if (!generatedKeys.next()) {
                         throw new DataAccessException("Failed to get generated game ID");
                     }
+                    int gameID = generatedKeys.getInt(1);
+                    bumpGamesVersion(conn);
+                    conn.commit();
+                    return gameID;
                 }
+            } catch (SQLException | DataAccessException ex) {
+                conn.rollback();
+                throw ex;
             }
         } catch (SQLException ex) {
             throw new DataAccessException("Unable to create game", ex);
         }
     }
 
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException {
+        if (games == null) {
+            throw new DataAccessException("Games cannot be null");
+        }
+
+        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameState, result, termination) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        List<Integer> gameIDs = new ArrayList<>(games.size());
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var preparedStatement = conn.prepareStatement(statement, java.sql.Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < games.size(); start += BATCH_SIZE) {
+                    for (GameData game : games.subList(start, Math.min(start + BATCH_SIZE, games.size()))) {
+                        if (game == null) {
+                            throw new DataAccessException("Game cannot be null");
+                        }
+                        preparedStatement.setString(1, game.getWhiteUsername());
+                        preparedStatement.setString(2, game.getBlackUsername());
+                        preparedStatement.setString(3, game.getGameName());
+                        preparedStatement.setBytes(4, GameStateCodec.encode(game.getGame()));
+                        preparedStatement.setString(5, nameOf(game.getResult()));
+                        preparedStatement.setString(6, nameOf(game.getTermination()));
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+                    try (var generatedKeys = preparedStatement.getGeneratedKeys()) {
+                        while (generatedKeys.next()) {
+                            gameIDs.add(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+                bumpGamesVersion(conn);
+                conn.commit();
+            } catch (SQLException | DataAccessException ex) {
+                conn.rollback();
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to create games", ex);
+        }
+
+        if (gameIDs.size() != games.size()) {
+            throw new DataAccessException("Failed to get generated game IDs");
+        }
+        return gameIDs;
+    }
+
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameState FROM games WHERE gameID = ?";
+        var statement = "SELECT " + GAME_COLUMNS + " FROM games WHERE gameID = ?";
         try (var conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.setInt(1, gameID);
                 try (var resultSet = preparedStatement.executeQuery()) {
                     if (resultSet.next()) {
-                        // Deserialize ChessGame from JSON
-                        Gson gson = new Gson();
-                        String gameStateJson = resultSet.getString("gameState");
-                        ChessGame chessGame = gson.fromJson(gameStateJson, ChessGame.class);
-
-                        return new GameData(
-                                resultSet.getInt("gameID"),
-                                resultSet.getString("whiteUsername"),
-                                resultSet.getString("blackUsername"),
-                                resultSet.getString("gameName"),
-                                chessGame
-                        );
+                        return readGame(resultSet);
                     }
                     return null;
                 }
@@ -261,26 +409,67 @@ public class MySqlDataAccess implements DataAccess {
 
     @Override
     public Collection<GameData> listGames() throws DataAccessException {
-        var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameState FROM games";
+        return queryGames("SELECT " + GAME_COLUMNS + " FROM games");
+    }
+
+    @Override
+    public Collection<GameData> listActiveGames() throws DataAccessException {
+        // Served by idx_games_result
+        return queryGames("SELECT " + GAME_COLUMNS + " FROM games WHERE result IS NULL");
+    }
+
+    /*
+     * Connector/J normally reads a whole result set into memory before returning it. A
+     * forward-only, read-only statement with fetch size Integer.MIN_VALUE makes it stream
+     * rows off the socket instead, so only the game being visited is held at once. The
+     * connection stays busy until the last row is read.
+     */
+    @Override
+    public void forEachGame(boolean activeOnly, GameVisitor visitor) throws DataAccessException, IOException {
+        String statement = "SELECT " + GAME_COLUMNS + " FROM games" + (activeOnly ? " WHERE result IS NULL" : "");
+        try (var conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement(statement,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(Integer.MIN_VALUE);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    visitor.visit(readGame(resultSet));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to list games", ex);
+        }
+    }
+
+    // Served by the primary key, so each page costs the same however deep into the table it starts
+    @Override
+    public List<GameData> listGamesAfter(int afterGameID, int limit, boolean activeOnly) throws DataAccessException {
+        String statement = "SELECT " + GAME_COLUMNS + " FROM games WHERE gameID > ?"
+                + (activeOnly ? " AND result IS NULL" : "") + " ORDER BY gameID LIMIT ?";
+        List<GameData> games = new ArrayList<>();
+        try (var conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.setInt(1, afterGameID);
+            preparedStatement.setInt(2, limit);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    games.add(readGame(resultSet));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to list games", ex);
+        }
+        return games;
+    }
+
+    private Collection<GameData> queryGames(String statement) throws DataAccessException {
         ArrayList<GameData> games = new ArrayList<>();
 
         try (var conn = DatabaseManager.getConnection()) {
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 try (var resultSet = preparedStatement.executeQuery()) {
                     while (resultSet.next()) {
-                        // Deserialize ChessGame from JSON
-                        Gson gson = new Gson();
-                        String gameStateJson = resultSet.getString("gameState");
-                        ChessGame chessGame = gson.fromJson(gameStateJson, ChessGame.class);
-
-                        GameData gameData = new GameData(
-                                resultSet.getInt("gameID"),
-                                resultSet.getString("whiteUsername"),
-                                resultSet.getString("blackUsername"),
-                                resultSet.getString("gameName"),
-                                chessGame
-                        );
-                        games.add(gameData);
+                        games.add(readGame(resultSet));
                     }
                 }
             }
@@ -292,31 +481,139 @@ public class MySqlDataAccess implements DataAccess {
     }
 
     @Override
-    public void updateGame(GameData game) throws DataAccessException {
+    public long gamesVersion() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement("SELECT version FROM games_version WHERE id = 1");
+             var resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new DataAccessException("games_version row is missing");
+            }
+            return resultSet.getLong(1);
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to read games version", ex);
+        }
+    }
+
+    @Override
+    public long lastCleared() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection();
+             var preparedStatement = conn.prepareStatement("SELECT clearedAt FROM last_cleared WHERE id = 1");
+             var resultSet = preparedStatement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new DataAccessException("last_cleared row is missing");
+            }
+            return resultSet.getLong(1);
+        } catch (SQLException ex) {
+            throw new DataAccessException("Unable to read last clear time", ex);
+        }
+    }
+
+    // Runs in the same transaction as the game write it covers, so neither commits alone
+    private static void bumpGamesVersion(Connection conn) throws SQLException {
+        try (var statement = conn.createStatement()) {
+            statement.executeUpdate(BUMP_GAMES_VERSION);
+        }
+    }
+
+    private static GameData readGame(ResultSet resultSet) throws SQLException, DataAccessException {
+        ChessGame chessGame = GameStateCodec.decode(resultSet.getBytes("gameState"));
+        String result = resultSet.getString("result");
+        String termination = resultSet.getString("termination");
+
+        return new GameData(
+                resultSet.getInt("gameID"),
+                resultSet.getString("whiteUsername"),
+                resultSet.getString("blackUsername"),
+                resultSet.getString("gameName"),
+                chessGame,
+                resultSet.getInt("version"),
+                result == null ? null : GameData.Result.valueOf(result),
+                termination == null ? null : GameData.Termination.valueOf(termination)
+        );
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    @Override
+    public boolean updateGame(GameData game) throws DataAccessException {
         if (game == null) {
             throw new DataAccessException("Game cannot be null");
         }
 
-        // Serialize ChessGame to JSON
-        Gson gson = new Gson();
-        String gameStateJson = gson.toJson(game.getGame());
+        byte[] gameState = GameStateCodec.encode(game.getGame());
 
-        var statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = ? WHERE gameID = ?";
+        var statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = ?, " +
+                "result = ?, termination = ?, version = version + 1 WHERE gameID = ? AND version = ?";
         try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
             try (var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.setString(1, game.getWhiteUsername());
                 preparedStatement.setString(2, game.getBlackUsername());
                 preparedStatement.setString(3, game.getGameName());
-                preparedStatement.setString(4, gameStateJson);
-                preparedStatement.setInt(5, game.getGameID());
-
-                int rowsAffected = preparedStatement.executeUpdate();
-                if (rowsAffected == 0) {
-                    throw new DataAccessException("Game not found");
+                preparedStatement.setBytes(4, gameState);
+                preparedStatement.setString(5, nameOf(game.getResult()));
+                preparedStatement.setString(6, nameOf(game.getTermination()));
+                preparedStatement.setInt(7, game.getGameID());
+                preparedStatement.setInt(8, game.getVersion());
+
+                if (preparedStatement.executeUpdate() == 1) {
+                    bumpGamesVersion(conn);
+                    conn.commit();
+                    return true;
+                }
+                conn.rollback();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            }
+            // No row matched: either the game is gone or someone else bumped the version
+            try (var preparedStatement = conn.prepareStatement("SELECT 1 FROM games WHERE gameID = ?")) {
+                preparedStatement.setInt(1, game.getGameID());
+                try (var resultSet = preparedStatement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new DataAccessException("Game not found");
+                    }
+                    return false;
                 }
             }
         } catch (SQLException ex) {
             throw new DataAccessException("Unable to update game", ex);
         }
     }
-}
\ No newline at end of file
+
+    private interface BatchBinder<T> {
+        void bind(PreparedStatement preparedStatement, T item) throws SQLException;
+    }
+
+    /*
+     * Runs statement once per item as JDBC batches of BATCH_SIZE inside a single
+     * transaction, so a failure part way through leaves nothing behind.
+     */
+    private <T> void executeBatch(Connection conn, String statement, Collection<T> items, BatchBinder<T> binder)
+            throws SQLException, DataAccessException {
+        conn.setAutoCommit(false);
+        try (var preparedStatement = conn.prepareStatement(statement)) {
+            int pending = 0;
+            for (T item : items) {
+                if (item == null) {
+                    throw new DataAccessException("Batch item cannot be null");
+                }
+                binder.bind(preparedStatement, item);
+                preparedStatement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    preparedStatement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                preparedStatement.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException | DataAccessException ex) {
+            conn.rollback();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dataaccess;
+
+import java.util.regex.Pattern;
+
+/**
+ * Stores only ever keep BCrypt hashes. Callers hash with PasswordHasher, on its bounded
+ * pool and at the configured cost, before calling createUser; a store refuses anything
+ * else rather than hashing it inline.
+ */
+public final class PasswordHashes {
+    // Version, two-digit cost, then 22 salt and 31 hash characters in BCrypt's base64
+    private static final Pattern BCRYPT = Pattern.compile("\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+
+    private PasswordHashes() {
+    }
+
+    /**
+     * @return true if stored is a complete BCrypt hash. A plain password that merely starts
+     *         like one is not, so it is still hashed rather than stored as it is.
+     */
+    public static boolean isBCrypt(String stored) {
+        return BCRYPT.matcher(stored).matches();
+    }
+
+    static String requireHashed(String password) throws DataAccessException {
+        if (password == null || !isBCrypt(password)) {
+            throw new DataAccessException("Error: password must be a BCrypt hash");
+        }
+        return password;
+    }
+}
@@ -0,0 +1,187 @@
+package dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log backed by a FileChannel. Each record is framed as
+ * [length][crc32][payload] so a torn write at the tail is detected on replay.
+ * <p>
+ * Durability uses group commit: whichever waiter finds no fsync in flight forces the
+ * channel on behalf of every record appended so far, and the rest just wait for it.
+ * Appends must be serialized by the caller.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final int HEADER_BYTES = 8;
+
+    private final boolean fsync;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean syncing;
+
+    WriteAheadLog(Path file, boolean fsync) throws IOException {
+        this.fsync = fsync;
+        this.channel = open(file);
+    }
+
+    /**
+     * @return the sequence number to pass to awaitDurable
+     */
+    long append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        long start = channel.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException ex) {
+            // Replay stops at a torn record, so cut it off before anything is appended after it
+            try {
+                channel.truncate(start);
+            } catch (IOException truncateFailure) {
+                ex.addSuppressed(truncateFailure);
+            }
+            throw ex;
+        }
+        synchronized (syncLock) {
+            return ++appendedSeq;
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     * Returns immediately when the log was opened without fsync.
+     */
+    void awaitDurable(long seq) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        FileChannel toForce;
+        long target;
+        synchronized (syncLock) {
+            while (durableSeq < seq && syncing) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for log sync", e);
+                }
+            }
+            if (durableSeq >= seq) {
+                return;
+            }
+            syncing = true;
+            target = appendedSeq;
+            toForce = channel;
+        }
+        boolean forced = false;
+        try {
+            toForce.force(false);
+            forced = true;
+        } finally {
+            synchronized (syncLock) {
+                if (forced) {
+                    durableSeq = Math.max(durableSeq, target);
+                }
+                syncing = false;
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Makes everything written so far durable and continues appending in a new file.
+     * Must be called while appends are blocked.
+     */
+    void rotate(Path next) throws IOException {
+        synchronized (syncLock) {
+            while (syncing) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for log sync", e);
+                }
+            }
+            channel.force(false);
+            channel.close();
+            channel = open(next);
+            durableSeq = appendedSeq;
+            syncLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Feeds every intact record in file to consumer, in order, and truncates a torn
+     * or corrupt tail left behind by a crash.
+     *
+     * @return the number of records replayed
+     */
+    static int replay(Path file, Consumer<byte[]> consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            int count = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(in, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(in, payload, position + HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                crc.update(payload.array());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                consumer.accept(payload.array());
+                position += HEADER_BYTES + length;
+                count++;
+            }
+            if (position < size) {
+                in.truncate(position);
+                in.force(false);
+            }
+            return count;
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
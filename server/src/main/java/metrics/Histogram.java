@@ -0,0 +1,98 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative longs with HDR-style log-linear buckets. Values below
+ * 128 are counted exactly. Above that, each power of two is split into 64 equal buckets, so
+ * any recorded value is known to within 1/64 (about 1.6%) however large it is. This costs
+ * a fixed 24 KB per histogram instead of memory proportional to the number of samples.
+ * <p>
+ * Values of 2^36 and above are clamped into the top bucket. In microseconds that is about
+ * 19 hours, and in bytes 64 GB.
+ */
+public class Histogram {
+    private static final int LINEAR = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BITS = 6;
+    private static final int MAX_BIT = 35;
+    private static final long MAX_VALUE = (1L << (MAX_BIT + 1)) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(clamped));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time since startNanos, in microseconds.
+     */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile 0 to 1, e.g. 0.99
+     * @return the highest value in the bucket holding that quantile, capped at the largest
+     *         value recorded, or 0 if nothing has been recorded
+     */
+    public long valueAt(double quantile) {
+        // Taken from the buckets alone, so a concurrent record at most shifts it one sample
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long highestValueIn(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long top = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,139 @@
+package metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters, gauges and histograms, exported in the Prometheus text format. A metric
+ * is identified by its name and label values, given as alternating names and values, and
+ * is created on first use; asking again with the same name and labels returns the same
+ * instance, so callers may either keep it or look it up on every use.
+ * <p>
+ * Histograms are exported as summaries with 0.5, 0.9, 0.99 and 0.999 quantiles. They keep
+ * whatever unit they were recorded in, and a scale given at registration converts that to
+ * the exported unit, e.g. 1e-6 for microseconds recorded and seconds exported.
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, Type.COUNTER, 1).metrics
+                .computeIfAbsent(labelText(labels), key -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter kept elsewhere, read from value at every scrape. Registering the
+     * same name and labels again replaces the supplier.
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER, 1).metrics.put(labelText(labels), value);
+    }
+
+    public Histogram histogram(String name, String help, double scale, String... labels) {
+        return (Histogram) family(name, help, Type.SUMMARY, scale).metrics
+                .computeIfAbsent(labelText(labels), key -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge whose value is read from value at every scrape. Registering the same
+     * name and labels again replaces the supplier.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE, 1).metrics.put(labelText(labels), value);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.exported).append('\n');
+            family.metrics.forEach((labels, metric) -> {
+                switch (family.type) {
+                    case COUNTER, GAUGE -> sample(out, family.name, labels, metric instanceof LongAdder adder
+                            ? adder.sum() : ((DoubleSupplier) metric).getAsDouble());
+                    case SUMMARY -> summary(out, family, labels, (Histogram) metric);
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type, double scale) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, scale));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type.exported);
+        }
+        return family;
+    }
+
+    private static void summary(StringBuilder out, Family family, String labels, Histogram histogram) {
+        for (double quantile : QUANTILES) {
+            String quantileLabel = "quantile=\"" + quantile + "\"";
+            String withQuantile = labels.isEmpty() ? "{" + quantileLabel + "}"
+                    : labels.substring(0, labels.length() - 1) + "," + quantileLabel + "}";
+            sample(out, family.name, withQuantile, histogram.valueAt(quantile) * family.scale);
+        }
+        sample(out, family.name + "_sum", labels, histogram.sum() * family.scale);
+        sample(out, family.name + "_count", labels, histogram.count());
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String labelText(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name, value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        final String exported;
+
+        Type(String exported) {
+            this.exported = exported;
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final double scale;
+        final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, Type type, double scale) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.scale = scale;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package server;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+/**
+ * Builds Spark's Jetty server with a GzipHandler in front of everything Spark installs, so
+ * any GET response larger than minGzipSize is gzip-compressed for clients that accept it.
+ * Because compression happens below Spark, handlers may write straight to the response
+ * stream and still be compressed. The GzipHandler also keeps ETags consistent by tagging
+ * compressed variants and stripping that tag from If-None-Match before the route sees it.
+ */
+class CompressingJettyServerFactory implements JettyServerFactory {
+    private final int minGzipSize;
+
+    CompressingJettyServerFactory(int minGzipSize) {
+        this.minGzipSize = minGzipSize;
+    }
+
+    // Same defaults Spark's own factory uses
+    @Override
+    public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+        if (maxThreads <= 0) {
+            return new CompressingServer(null);
+        }
+        return new CompressingServer(new QueuedThreadPool(maxThreads, minThreads > 0 ? minThreads : 8,
+                threadTimeoutMillis > 0 ? threadTimeoutMillis : 60_000));
+    }
+
+    @Override
+    public Server create(ThreadPool threadPool) {
+        return new CompressingServer(threadPool);
+    }
+
+    // Spark sets its handler (or handler list, with WebSockets) after creating the server
+    private final class CompressingServer extends Server {
+        CompressingServer(ThreadPool threadPool) {
+            super(threadPool);
+        }
+
+        @Override
+        public void setHandler(Handler handler) {
+            GzipHandler gzip = new GzipHandler();
+            gzip.setMinGzipSize(minGzipSize);
+            gzip.setHandler(handler);
+            super.setHandler(gzip);
+        }
+    }
+}
@@ -1,45 +1,110 @@
 package server;
 
+import server.websocket.GameEventBus;
+import server.websocket.InProcessEventBus;
+import server.websocket.SocketEventBroker;
+import server.websocket.SocketEventBus;
 import server.websocket.WebSocketHandler;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import dataaccess.BoundedDataAccess;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.DurableMemoryDataAccess;
+import dataaccess.InstrumentedDataAccess;
 import dataaccess.MemoryDataAccess;
 import dataaccess.MySqlDataAccess;
+import metrics.MetricsRegistry;
+import model.GameData;
+import service.AuthTokenReaper;
+import service.AuthTokens;
 import service.ClearService;
+import service.PasswordHasher;
+import service.RetryPolicy;
+import service.SignedAuthTokens;
+import service.StoredAuthTokens;
 import service.UserService;
 import service.GameService;
+import websocket.messages.LobbyMessage;
 import spark.Request;
 import spark.Response;
 import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
 import static spark.Spark.webSocket;
 
 public class Server {
+    private static final Duration DEFAULT_TOKEN_TTL = Duration.ofDays(7);
+    private static final String START_NANOS = "chess.startNanos";
+    // Anything else is counted as "other", so unknown paths cannot grow the metrics without bound
+    private static final Set<String> ROUTES = Set.of("DELETE /db", "POST /user", "POST /session",
+            "DELETE /session", "GET /game", "POST /game", "PUT /game", "GET /admin/metrics");
+
     private final DataAccess dataAccess;
     private final ClearService clearService;
     private final UserService userService;
+    private final PasswordHasher passwordHasher;
+    private final AuthTokens authTokens;
+    private AuthTokenReaper authTokenReaper;
     private final GameService gameService;
     private final Gson gson;
+    private final TypeAdapter<GameData> gameAdapter;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private SocketEventBroker eventBroker;
+    private GameEventBus eventBus;
 
     public Server() {
-        try {
-            this.dataAccess = new MySqlDataAccess();
-        } catch (DataAccessException e) {
-            throw new RuntimeException("Failed to initialize database", e);
+        this(boundConcurrency(createDataAccess()));
+    }
+
+    public Server(DataAccess dataAccess) {
+        if (dataAccess instanceof BoundedDataAccess bounded) {
+            metrics.gauge("chess_db_available_permits", "Store calls that could start without waiting",
+                    bounded::availablePermits);
         }
-        this.clearService = new ClearService(dataAccess);
-        this.userService = new UserService(dataAccess);
-        this.gameService = new GameService(dataAccess);
+        this.dataAccess = instrument(dataAccess);
+        this.authTokens = createAuthTokens(this.dataAccess);
+        this.clearService = new ClearService(this.dataAccess, authTokens);
+        this.passwordHasher = PasswordHasher.fromSystemProperties();
+        this.userService = new UserService(this.dataAccess, passwordHasher, authTokens);
+        this.gameService = new GameService(this.dataAccess, RetryPolicy.GAME_UPDATES, authTokens);
         this.gson = new Gson();
+        this.gameAdapter = gson.getAdapter(GameData.class);
     }
 
     public int run(int desiredPort) {
+        // Responses of chess.http.gzipMinBytes (default 1024) or more are gzip-compressed
+        EmbeddedJettyFactory jetty = new EmbeddedJettyFactory(
+                new CompressingJettyServerFactory(Integer.getInteger("chess.http.gzipMinBytes", 1024)));
+        if (useVirtualThreads()) {
+            jetty.withThreadPool(new VirtualThreadPool());
+        }
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, jetty);
         Spark.port(desiredPort);
         Spark.staticFiles.location("web");
 
         webSocket("/ws", WebSocketHandler.class);
         WebSocketHandler.setDataAccess(dataAccess);
+        WebSocketHandler.setAuthTokens(authTokens);
+        startAuthTokenReaper();
+        eventBus = createEventBus();
+        WebSocketHandler.setEventBus(eventBus);
+        WebSocketHandler.setMetrics(metrics);
 
+        Spark.before((req, res) -> req.attribute(START_NANOS, System.nanoTime()));
+        Spark.afterAfter(this::recordRequest);
+        registerServiceMetrics();
+
+        Spark.get("/admin/metrics", this::metricsHandler);
         Spark.delete("/db", this::clearHandler);
         Spark.post("/user", this::registerHandler);
         Spark.post("/session", this::loginHandler);
@@ -49,6 +114,10 @@ public class Server {
         Spark.put("/game", this::joinGameHandler);
 
         Spark.exception(Exception.class, (exception, request, response) -> {
+            metrics.counter("chess_http_exceptions_total", "Exceptions that escaped a route handler",
+                    "type", exception.getClass().getSimpleName()).increment();
+            System.err.println("Unhandled exception in " + request.requestMethod() + " " + request.pathInfo()
+                    + ": " + exception);
             response.status(500);
             response.type("application/json");
             response.body(gson.toJson(new ErrorResponse("Error: " + exception.getMessage())));
@@ -60,6 +129,183 @@ public class Server {
 
     public void stop() {
         Spark.stop();
+        if (eventBus != null) {
+            eventBus.close();
+        }
+        if (eventBroker != null) {
+            eventBroker.close();
+        }
+        passwordHasher.close();
+        if (authTokenReaper != null) {
+            authTokenReaper.close();
+        }
+        if (dataAccess instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Error closing data access: " + e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Picks the storage backend from the chess.storage system property:
+     * "mysql" (default), "memory" for a MySQL-free, non-durable server, or "durable"
+     * for in-memory storage backed by a write-ahead log in chess.data.dir.
+     */
+    private static DataAccess createDataAccess() {
+        String storage = System.getProperty("chess.storage", "mysql");
+        if ("memory".equalsIgnoreCase(storage)) {
+            return new MemoryDataAccess();
+        }
+        try {
+            if ("durable".equalsIgnoreCase(storage)) {
+                return new DurableMemoryDataAccess(Path.of(System.getProperty("chess.data.dir", "chess-data")),
+                        Integer.getInteger("chess.wal.snapshotInterval", 10_000),
+                        Boolean.parseBoolean(System.getProperty("chess.wal.fsync", "true")));
+            }
+            return new MySqlDataAccess();
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Failed to initialize database", e);
+        }
+    }
+
+    /*
+     * chess.auth.tokens=signed issues HMAC-signed tokens that are checked without a store
+     * lookup, keyed by chess.auth.keys ("id:base64secret,...", first one signs). The
+     * default, "stored", keeps tokens in the auths table.
+     */
+    private static AuthTokens createAuthTokens(DataAccess dataAccess) {
+        if (!"signed".equalsIgnoreCase(System.getProperty("chess.auth.tokens", "stored"))) {
+            return new StoredAuthTokens(dataAccess, tokenTtl());
+        }
+        // Signed tokens cannot slide, and their revocation list needs an end date
+        Duration ttl = tokenTtl().isZero() ? DEFAULT_TOKEN_TTL : tokenTtl();
+        return new SignedAuthTokens(SignedAuthTokens.parseKeys(System.getProperty("chess.auth.keys")), ttl, dataAccess);
+    }
+
+    /*
+     * Stored tokens expire after chess.auth.ttlMinutes without use (default 7 days, 0 for
+     * never). Expired rows are deleted every chess.auth.reapIntervalSeconds, at most
+     * chess.auth.reapBatchSize per statement.
+     */
+    private static Duration tokenTtl() {
+        return Duration.ofMinutes(Long.getLong("chess.auth.ttlMinutes", DEFAULT_TOKEN_TTL.toMinutes()));
+    }
+
+    private void startAuthTokenReaper() {
+        if (!(authTokens instanceof StoredAuthTokens) || tokenTtl().isZero()) {
+            return;
+        }
+        authTokenReaper = new AuthTokenReaper(dataAccess, tokenTtl(), Integer.getInteger("chess.auth.reapBatchSize", 500));
+        authTokenReaper.start(Duration.ofSeconds(Long.getLong("chess.auth.reapIntervalSeconds", 60)));
+    }
+
+    /*
+     * Picks how WebSocket broadcasts reach other server nodes from chess.bus: "local"
+     * (default) keeps them in this process, "socket" joins the SocketEventBroker at
+     * chess.bus.host:chess.bus.port. Set chess.bus.embeddedBroker=true on one node to
+     * have it host the broker.
+     */
+    private GameEventBus createEventBus() {
+        if (!"socket".equalsIgnoreCase(System.getProperty("chess.bus", "local"))) {
+            return new InProcessEventBus();
+        }
+        int port = Integer.getInteger("chess.bus.port", 9099);
+        try {
+            if (Boolean.getBoolean("chess.bus.embeddedBroker")) {
+                eventBroker = new SocketEventBroker(port);
+                port = eventBroker.getPort();
+            }
+            return new SocketEventBus(System.getProperty("chess.bus.host", "localhost"), port);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to event bus", e);
+        }
+    }
+
+    /*
+     * chess.virtualThreads=true runs every HTTP request and WebSocket frame on its own
+     * virtual thread instead of Jetty's bounded platform thread pool.
+     */
+    private static boolean useVirtualThreads() {
+        return Boolean.getBoolean("chess.virtualThreads");
+    }
+
+    /*
+     * Caps concurrent calls into the store at chess.db.maxConcurrency. Without virtual
+     * threads the Jetty pool already bounds concurrency, so the cap is only applied by
+     * default in virtual thread mode, where it defaults to the number of processors.
+     */
+    private static DataAccess boundConcurrency(DataAccess dataAccess) {
+        Integer maxConcurrency = Integer.getInteger("chess.db.maxConcurrency");
+        if (maxConcurrency == null && useVirtualThreads()) {
+            maxConcurrency = Runtime.getRuntime().availableProcessors();
+        }
+        return maxConcurrency == null ? dataAccess : new BoundedDataAccess(dataAccess, maxConcurrency);
+    }
+
+    private void recordRequest(Request req, Response res) {
+        Long start = req.attribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        String route = req.requestMethod() + " " + req.pathInfo();
+        if (!ROUTES.contains(route)) {
+            route = "other";
+        }
+        metrics.counter("chess_http_requests_total", "HTTP requests by route and status",
+                "route", route, "status", Integer.toString(res.status())).increment();
+        metrics.histogram("chess_http_request_seconds", "HTTP request latency by route, including writing the body",
+                1e-6, "route", route).recordSince(start);
+    }
+
+    // Read from the services' own stats at scrape time, so they cost nothing in between
+    private void registerServiceMetrics() {
+        metrics.counter("chess_bcrypt_operations_total", "Completed BCrypt operations",
+                () -> passwordHasher.stats().hashes(), "op", "hash");
+        metrics.counter("chess_bcrypt_operations_total", "Completed BCrypt operations",
+                () -> passwordHasher.stats().verifications(), "op", "verify");
+        metrics.counter("chess_bcrypt_rejected_total", "BCrypt operations refused because the pool was full",
+                () -> passwordHasher.stats().rejected());
+        metrics.gauge("chess_bcrypt_queued", "BCrypt operations waiting for a thread",
+                () -> passwordHasher.stats().queued());
+        metrics.gauge("chess_bcrypt_mean_seconds", "Mean BCrypt wait including queueing",
+                () -> passwordHasher.stats().meanMillis() / 1000);
+        metrics.gauge("chess_bcrypt_max_seconds", "Longest BCrypt wait including queueing",
+                () -> passwordHasher.stats().maxMillis() / 1000);
+        if (authTokenReaper != null) {
+            metrics.gauge("chess_auth_tokens", "Stored auth tokens as of the last reaper run",
+                    () -> authTokenReaper.stats().tokens());
+            metrics.counter("chess_auth_tokens_reaped_total", "Expired auth tokens deleted by the reaper",
+                    () -> authTokenReaper.stats().totalReaped());
+            metrics.gauge("chess_auth_reap_last_run_seconds", "Duration of the last reaper run",
+                    () -> authTokenReaper.stats().lastRunMillis() / 1000.0);
+        }
+    }
+
+    /*
+     * Prometheus text exposition of every metric. Open unless chess.admin.token is set, in
+     * which case the Authorization header must carry that token.
+     */
+    private Object metricsHandler(Request req, Response res) {
+        String adminToken = System.getProperty("chess.admin.token");
+        if (adminToken != null && !adminToken.equals(req.headers("authorization"))) {
+            return handleError(res, new DataAccessException("Error: unauthorized"));
+        }
+        res.status(200);
+        res.type("text/plain; version=0.0.4; charset=utf-8");
+        return metrics.scrape();
+    }
+
+    /*
+     * Times every store call into the metrics registry. Calls of chess.db.slowMillis
+     * (default 100) or more are logged, and one in chess.db.payloadSampleEvery (default 16)
+     * game states has its stored size measured.
+     */
+    private DataAccess instrument(DataAccess dataAccess) {
+        return new InstrumentedDataAccess(dataAccess, metrics,
+                Duration.ofMillis(Long.getLong("chess.db.slowMillis", 100)),
+                Integer.getInteger("chess.db.payloadSampleEvery", 16));
     }
 
     private void setJsonResponse(Response res, int status) {
@@ -77,6 +323,10 @@ public class Server {
             res.status(401);
         } else if (message.contains("already taken")) {
             res.status(403);
+        } else if (message.contains("server busy")) {
+            // Password hashing is saturated; shed the request instead of queuing it
+            res.status(503);
+            res.header("Retry-After", "1");
         } else {
             res.status(500);
             // Ensure 500 errors always start with "Error:"
@@ -91,6 +341,7 @@ public class Server {
     private Object clearHandler(Request req, Response res) {
         try {
             clearService.clear();
+            WebSocketHandler.publishLobbyCleared();
             setJsonResponse(res, 200);
             return "{}";
         } catch (DataAccessException e) {
@@ -136,19 +387,54 @@ public class Server {
     private Object listGamesHandler(Request req, Response res) {
         try {
             String authToken = req.headers("authorization");
-            GameService.ListGamesResult result = gameService.listGames(authToken);
+            // GET /game?active=true lists only games that are still being played
+            boolean activeOnly = Boolean.parseBoolean(req.queryParams("active"));
+            GameService.ConditionalListing listing = gameService.listGamesIfChanged(authToken, activeOnly,
+                    req.headers("If-None-Match"));
+            res.header("ETag", listing.etag());
+            if (listing.games() == null) {
+                res.status(304);
+                return "";
+            }
             setJsonResponse(res, 200);
-            return gson.toJson(result);
+            writeGames(res.raw(), listing.games());
+            return "";
         } catch (DataAccessException e) {
             return handleError(res, e);
         }
     }
 
+    /*
+     * Writes {"games":[...]} straight to the response as the store hands games over, the
+     * same JSON gson.toJson(ListGamesResult) would build as one String. A store failure
+     * before Jetty has flushed anything still becomes a normal error response; after
+     * that the status is already sent and the client just sees the body cut short.
+     */
+    private void writeGames(HttpServletResponse raw, GameService.GameCursor games) throws DataAccessException {
+        try {
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(raw.getOutputStream(), StandardCharsets.UTF_8));
+            writer.beginObject().name("games").beginArray();
+            games.forEach(game -> gameAdapter.write(writer, game));
+            writer.endArray().endObject();
+            writer.flush();
+        } catch (DataAccessException e) {
+            if (raw.isCommitted()) {
+                System.err.println("Game listing failed after the response started: " + e.getMessage());
+                return;
+            }
+            raw.resetBuffer();
+            throw e;
+        } catch (IOException e) {
+            System.err.println("Client stopped reading the game listing: " + e.getMessage());
+        }
+    }
+
     private Object createGameHandler(Request req, Response res) {
         try {
             String authToken = req.headers("authorization");
             GameService.CreateGameRequest request = gson.fromJson(req.body(), GameService.CreateGameRequest.class);
             GameService.CreateGameResult result = gameService.createGame(request, authToken);
+            WebSocketHandler.publishLobby(LobbyMessage.Change.CREATED, result.gameID());
             setJsonResponse(res, 200);
             return gson.toJson(result);
         } catch (DataAccessException e) {
@@ -169,6 +455,7 @@ public class Server {
             System.out.println("Join game request: " + gson.toJson(request));
             
             gameService.joinGame(request, authToken);
+            WebSocketHandler.publishLobby(LobbyMessage.Change.JOINED, request.gameID());
             setJsonResponse(res, 200);
             return "{}";
         } catch (DataAccessException e) {
@@ -0,0 +1,77 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool that runs every task on its own virtual thread. Handlers that block on
+ * JDBC or BCrypt park their virtual thread instead of holding one of a fixed number of
+ * platform threads, so a burst of slow requests no longer starves the rest of the server.
+ * <p>
+ * The executor is created on start rather than in the constructor because Spark keeps the
+ * pool across stop and restart of the embedded server.
+ */
+class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    @Override
+    protected void doStart() throws Exception {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new RejectedExecutionException("Thread pool is not started");
+        }
+        current.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    // Virtual threads are created on demand, so there is never an idle one to report
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
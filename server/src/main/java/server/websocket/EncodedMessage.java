@@ -0,0 +1,40 @@
+package server.websocket;
+
+import com.google.gson.Gson;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MessageCodec;
+import websocket.messages.ServerMessage;
+
+/**
+ * A server message together with its wire encodings. Each encoding is produced on first
+ * use and then shared by every recipient that asked for it, so a broadcast serializes a
+ * message at most once per protocol no matter how many sessions receive it.
+ * <p>
+ * Not thread-safe; a broadcast builds and uses one on a single thread.
+ */
+final class EncodedMessage {
+    private static final Gson GSON = new Gson();
+
+    private final ServerMessage message;
+    private SessionOutbox.Frame text;
+    private SessionOutbox.Frame binary;
+
+    EncodedMessage(ServerMessage message) {
+        this.message = message;
+    }
+
+    SessionOutbox.Frame frameFor(boolean binaryFrames) {
+        // A newer board makes an unsent one pointless, so queued LOAD_GAMEs may be dropped
+        boolean supersedable = message instanceof LoadGameMessage;
+        if (binaryFrames) {
+            if (binary == null) {
+                binary = SessionOutbox.Frame.binary(MessageCodec.encode(message), supersedable);
+            }
+            return binary;
+        }
+        if (text == null) {
+            text = SessionOutbox.Frame.text(GSON.toJson(message), supersedable);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,84 @@
+package server.websocket;
+
+import websocket.messages.MessageCodec;
+import websocket.messages.MoveMadeMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Something every session watching a game should be told, as published on a GameEventBus.
+ * Sessions that negotiated delta updates receive delta when there is one and everyone
+ * else receives message.
+ *
+ * @param excludedSessionId the session that caused the event and should not get it, or null
+ * @param delta             a MOVE_MADE equivalent of message, or null
+ */
+public record GameEvent(int gameID, String excludedSessionId, ServerMessage message, MoveMadeMessage delta) {
+
+    /**
+     * Wire form for buses that leave the JVM: the game ID and excluded session, then each
+     * message in the binary protocol, length-prefixed.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(gameID);
+            out.writeBoolean(excludedSessionId != null);
+            if (excludedSessionId != null) {
+                out.writeUTF(excludedSessionId);
+            }
+            writeMessage(out, message);
+            writeMessage(out, delta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if data is not a GameEvent written by toBytes
+     */
+    public static GameEvent fromBytes(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int gameID = in.readInt();
+            String excludedSessionId = in.readBoolean() ? in.readUTF() : null;
+            ServerMessage message = readMessage(in);
+            ServerMessage delta = readMessage(in);
+            if (message == null || (delta != null && !(delta instanceof MoveMadeMessage))) {
+                throw new IOException("Malformed game event");
+            }
+            return new GameEvent(gameID, excludedSessionId, message, (MoveMadeMessage) delta);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed game event", e);
+        }
+    }
+
+    private static void writeMessage(DataOutputStream out, ServerMessage message) throws IOException {
+        if (message == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] encoded = MessageCodec.encode(message);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static ServerMessage readMessage(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Malformed game event");
+        }
+        byte[] encoded = in.readNBytes(length);
+        return MessageCodec.decode(ByteBuffer.wrap(encoded));
+    }
+}
@@ -0,0 +1,29 @@
+package server.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries game events between the server nodes that have sessions for a game. Each node
+ * publishes what its commands produce and receives, through its listener, every event for
+ * the games it is subscribed to, including its own, so all nodes deliver a game's events
+ * in the same order.
+ * <p>
+ * subscribe and unsubscribe are idempotent; a node subscribes to a game while it has at
+ * least one local session watching it.
+ */
+public interface GameEventBus extends AutoCloseable {
+
+    /**
+     * Sets the callback for incoming events. Must be called before anything is published.
+     */
+    void setListener(Consumer<GameEvent> listener);
+
+    void subscribe(int gameID);
+
+    void unsubscribe(int gameID);
+
+    void publish(GameEvent event);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,87 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs WebSocket commands with one logical writer per game. Each game with pending work
+ * owns a FIFO mailbox drained by a single virtual thread, so commands for the same game
+ * never interleave while commands for different games run in parallel.
+ * <p>
+ * A game has an entry in the mailbox map exactly while a drainer for it is scheduled or
+ * running. Every transition happens inside a ConcurrentHashMap compute, which keeps
+ * enqueueing, draining and removing idle mailboxes race-free without a global lock.
+ */
+class GameMailboxes {
+    private final ConcurrentHashMap<Integer, ArrayDeque<Runnable>> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    GameMailboxes() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    GameMailboxes(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues task behind any earlier tasks for the same game. Tasks without a game
+     * have nothing to serialize against and run immediately on their own thread.
+     */
+    void submit(Integer gameID, Runnable task) {
+        pending.incrementAndGet();
+        if (gameID == null) {
+            executor.execute(() -> runSafely(task));
+            return;
+        }
+        boolean[] startDrainer = new boolean[1];
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new ArrayDeque<>();
+                startDrainer[0] = true;
+            }
+            mailbox.add(task);
+            return mailbox;
+        });
+        if (startDrainer[0]) {
+            executor.execute(() -> drain(gameID));
+        }
+    }
+
+    private void drain(int gameID) {
+        Runnable task;
+        while ((task = next(gameID)) != null) {
+            runSafely(task);
+        }
+    }
+
+    // Takes the next task, or removes the now idle mailbox and returns null
+    private Runnable next(int gameID) {
+        Runnable[] next = new Runnable[1];
+        mailboxes.computeIfPresent(gameID, (id, mailbox) -> {
+            next[0] = mailbox.poll();
+            return next[0] == null ? null : mailbox;
+        });
+        return next[0];
+    }
+
+    /**
+     * @return tasks submitted but not yet started, across all games
+     */
+    int pending() {
+        return pending.get();
+    }
+
+    private void runSafely(Runnable task) {
+        pending.decrementAndGet();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.println("Error processing WebSocket command: " + e.getMessage());
+        }
+    }
+}
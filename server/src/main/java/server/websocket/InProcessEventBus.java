@@ -0,0 +1,34 @@
+package server.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-node bus: events go straight to this server's listener on the publishing thread,
+ * so fan-out costs the same as calling the sessions directly.
+ */
+public class InProcessEventBus implements GameEventBus {
+    private volatile Consumer<GameEvent> listener = event -> { };
+
+    @Override
+    public void setListener(Consumer<GameEvent> listener) {
+        this.listener = listener;
+    }
+
+    // Every event already reaches the only node, which skips games it has no sessions for
+    @Override
+    public void subscribe(int gameID) {
+    }
+
+    @Override
+    public void unsubscribe(int gameID) {
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+        listener.accept(event);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,115 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns the outbound queue of every open session and the counters that describe them.
+ * Limits come from chess.ws.maxQueueDepth (messages) and chess.ws.sendTimeoutMs.
+ */
+class OutboundQueues {
+    private final ConcurrentHashMap<Session, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final int maxQueueDepth;
+    private final long sendTimeoutNanos;
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "ws-send-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    OutboundQueues() {
+        this(Integer.getInteger("chess.ws.maxQueueDepth", 64),
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong("chess.ws.sendTimeoutMs", 10_000)));
+    }
+
+    OutboundQueues(int maxQueueDepth, long sendTimeoutNanos) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.sendTimeoutNanos = sendTimeoutNanos;
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Gives a newly connected session its outbox. Only open() creates outboxes, so a send
+     * that races with remove() cannot bring one back for a closed session.
+     */
+    void open(Session session) {
+        outboxes.putIfAbsent(session, new SessionOutbox(session, this));
+    }
+
+    /**
+     * Queues frame for session without blocking on the network. Does nothing once the
+     * session has been removed.
+     */
+    void send(Session session, SessionOutbox.Frame frame) {
+        SessionOutbox outbox = outboxes.get(session);
+        if (outbox != null) {
+            outbox.enqueue(frame);
+        }
+    }
+
+    void remove(Session session) {
+        SessionOutbox outbox = outboxes.remove(session);
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    /**
+     * @return messages waiting across all sessions, not counting writes in flight
+     */
+    int totalDepth() {
+        int total = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            total += outbox.depth();
+        }
+        return total;
+    }
+
+    int maxDepth() {
+        int max = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            max = Math.max(max, outbox.depth());
+        }
+        return max;
+    }
+
+    int peakDepth() {
+        return peakDepth.get();
+    }
+
+    long droppedBoards() {
+        return dropped.sum();
+    }
+
+    long disconnectedSessions() {
+        return disconnected.sum();
+    }
+
+    int maxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    ScheduledFuture<?> scheduleSendTimeout(Runnable check) {
+        return timer.schedule(check, sendTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordDepth(int depth) {
+        peakDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void recordDisconnected() {
+        disconnected.increment();
+    }
+}
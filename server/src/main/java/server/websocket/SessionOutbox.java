@@ -0,0 +1,164 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Bounded outbound queue for one WebSocket session. Messages are written with Jetty's
+ * async send, one at a time, so the thread that enqueues never waits on the client.
+ * <p>
+ * Backpressure policy: a queued board state that has not started sending is dropped
+ * when a newer one arrives, since the client only needs the latest board. A session
+ * whose queue still overflows, or whose current write has been stuck longer than the
+ * send timeout, is a laggard and is disconnected rather than allowed to grow the heap.
+ * The timeout is armed when each write starts, so a stuck write is noticed even if no
+ * further messages arrive for the session.
+ */
+class SessionOutbox implements WriteCallback {
+    private final Session session;
+    private final OutboundQueues owner;
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private boolean sending;
+    private long writes;
+    private ScheduledFuture<?> sendTimeout;
+    private boolean closed;
+
+    SessionOutbox(Session session, OutboundQueues owner) {
+        this.session = session;
+        this.owner = owner;
+    }
+
+    /**
+     * Queues frame behind earlier messages and starts a write if none is in flight.
+     */
+    void enqueue(Frame frame) {
+        Frame toSend;
+        String disconnectReason = null;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (frame.supersedable()) {
+                dropSupersededBoards();
+            }
+            if (queue.size() >= owner.maxQueueDepth()) {
+                disconnectReason = "Client cannot keep up with game updates";
+            }
+            if (disconnectReason != null) {
+                close();
+                toSend = null;
+            } else {
+                queue.add(frame);
+                owner.recordDepth(queue.size());
+                toSend = startNextLocked();
+            }
+        }
+        if (disconnectReason != null) {
+            owner.recordDisconnected();
+            session.close(StatusCode.TRY_AGAIN_LATER, disconnectReason);
+            return;
+        }
+        write(toSend);
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+        cancelSendTimeoutLocked();
+    }
+
+    @Override
+    public void writeSuccess() {
+        Frame next;
+        synchronized (this) {
+            sending = false;
+            cancelSendTimeoutLocked();
+            next = startNextLocked();
+        }
+        write(next);
+    }
+
+    @Override
+    public void writeFailed(Throwable cause) {
+        System.err.println("Error sending message: " + cause.getMessage());
+        owner.remove(session);
+    }
+
+    private void dropSupersededBoards() {
+        Iterator<Frame> frames = queue.iterator();
+        while (frames.hasNext()) {
+            if (frames.next().supersedable()) {
+                frames.remove();
+                owner.recordDropped();
+            }
+        }
+    }
+
+    private Frame startNextLocked() {
+        if (sending || closed || queue.isEmpty()) {
+            return null;
+        }
+        sending = true;
+        long write = ++writes;
+        sendTimeout = owner.scheduleSendTimeout(() -> sendTimedOut(write));
+        return queue.poll();
+    }
+
+    private void cancelSendTimeoutLocked() {
+        if (sendTimeout != null) {
+            sendTimeout.cancel(false);
+            sendTimeout = null;
+        }
+    }
+
+    private void sendTimedOut(long write) {
+        synchronized (this) {
+            if (closed || !sending || write != writes) {
+                return;
+            }
+            close();
+        }
+        owner.recordDisconnected();
+        session.close(StatusCode.TRY_AGAIN_LATER, "Client is not reading messages");
+    }
+
+    private void write(Frame frame) {
+        if (frame == null) {
+            return;
+        }
+        try {
+            if (frame.text() != null) {
+                session.getRemote().sendString(frame.text(), this);
+            } else {
+                session.getRemote().sendBytes(ByteBuffer.wrap(frame.bytes()), this);
+            }
+        } catch (RuntimeException e) {
+            writeFailed(e);
+        }
+    }
+
+    /**
+     * One outbound message, either a text or a binary frame. The payload may be shared
+     * with other sessions' queues, so it is never modified.
+     *
+     * @param supersedable true for full board states that a later board state replaces
+     */
+    record Frame(String text, byte[] bytes, boolean supersedable) {
+        static Frame text(String text, boolean supersedable) {
+            return new Frame(text, null, supersedable);
+        }
+
+        static Frame binary(byte[] bytes, boolean supersedable) {
+            return new Frame(null, bytes, supersedable);
+        }
+    }
+}
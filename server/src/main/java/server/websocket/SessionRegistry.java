@@ -0,0 +1,70 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracks which sessions are connected to which game. Each game keeps its players apart
+ * from its observers, both in concurrent hash sets, so joins and leaves are O(1) however
+ * many observers a game has, and broadcasts iterate without copying.
+ * <p>
+ * A game's entry is created on first join and removed as soon as its last session
+ * leaves. Both happen inside ConcurrentHashMap compute calls, which serializes them per
+ * game so a join can never land in an entry that is being removed.
+ */
+class SessionRegistry {
+    private final ConcurrentHashMap<Integer, GameSessions> games = new ConcurrentHashMap<>();
+
+    void add(int gameID, Session session, boolean player) {
+        games.compute(gameID, (id, sessions) -> {
+            if (sessions == null) {
+                sessions = new GameSessions();
+            }
+            (player ? sessions.players : sessions.observers).add(session);
+            return sessions;
+        });
+    }
+
+    /**
+     * @return false if the session was not in the game
+     */
+    boolean remove(int gameID, Session session) {
+        boolean[] removed = new boolean[1];
+        games.computeIfPresent(gameID, (id, sessions) -> {
+            removed[0] = sessions.players.remove(session) || sessions.observers.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Calls action for every session in the game, players first. Sessions that join or
+     * leave while this runs may or may not be visited.
+     */
+    void forEach(int gameID, Consumer<Session> action) {
+        GameSessions sessions = games.get(gameID);
+        if (sessions != null) {
+            sessions.players.forEach(action);
+            sessions.observers.forEach(action);
+        }
+    }
+
+    boolean hasSessions(int gameID) {
+        return games.containsKey(gameID);
+    }
+
+    int gameCount() {
+        return games.size();
+    }
+
+    private static final class GameSessions {
+        final Set<Session> players = ConcurrentHashMap.newKeySet();
+        final Set<Session> observers = ConcurrentHashMap.newKeySet();
+
+        boolean isEmpty() {
+            return players.isEmpty() && observers.isEmpty();
+        }
+    }
+}
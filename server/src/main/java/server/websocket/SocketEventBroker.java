@@ -0,0 +1,146 @@
+package server.websocket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A minimal embedded broker for SocketEventBus. Nodes connect over TCP, tell it which games
+ * they are subscribed to, and every published event is relayed to each node subscribed to
+ * its game, publisher included. Events for a game are relayed in the order the broker
+ * receives them, so every node sees the same order.
+ * <p>
+ * It keeps nothing on disk and has no failover; it is meant for tests and for running a
+ * handful of nodes on one host, with one node hosting it via chess.bus.embeddedBroker.
+ */
+public class SocketEventBroker implements AutoCloseable {
+    static final byte SUBSCRIBE = 1;
+    static final byte UNSUBSCRIBE = 2;
+    static final byte PUBLISH = 3;
+
+    private final ServerSocket serverSocket;
+    private final Set<Node> nodes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer, Set<Node>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Starts listening on localhost. Port 0 picks a free port; see getPort.
+     */
+    public SocketEventBroker(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("event-broker").start(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        nodes.forEach(Node::close);
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Node node = new Node(serverSocket.accept());
+                nodes.add(node);
+                // A node accepted while close() ran may have missed its sweep
+                if (closed) {
+                    node.close();
+                    return;
+                }
+                Thread.ofVirtual().name("event-broker-node").start(() -> serve(node));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Event broker failed to accept a node: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Node node) {
+        try {
+            while (true) {
+                byte op = node.in.readByte();
+                int gameID = node.in.readInt();
+                switch (op) {
+                    case SUBSCRIBE -> subscribers.computeIfAbsent(gameID, id -> ConcurrentHashMap.newKeySet()).add(node);
+                    case UNSUBSCRIBE -> unsubscribe(gameID, node);
+                    case PUBLISH -> relay(gameID, node.in.readNBytes(node.in.readInt()));
+                    default -> throw new IOException("Unknown event bus operation " + op);
+                }
+            }
+        } catch (IOException e) {
+            // Node went away; forget its subscriptions
+        } finally {
+            nodes.remove(node);
+            subscribers.keySet().forEach(gameID -> unsubscribe(gameID, node));
+            node.close();
+        }
+    }
+
+    private void unsubscribe(int gameID, Node node) {
+        subscribers.computeIfPresent(gameID, (id, set) -> {
+            set.remove(node);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // Serialized per game so every subscriber gets that game's events in one order
+    private void relay(int gameID, byte[] event) {
+        Set<Node> targets = subscribers.get(gameID);
+        if (targets == null) {
+            return;
+        }
+        synchronized (targets) {
+            for (Node target : targets) {
+                target.write(PUBLISH, gameID, event);
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Node(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        synchronized void write(byte op, int gameID, byte[] event) {
+            try {
+                out.writeByte(op);
+                out.writeInt(gameID);
+                out.writeInt(event.length);
+                out.write(event);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package server.websocket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Bus that shares game events between server nodes through a SocketEventBroker. Published
+ * events travel to the broker and come back, together with other nodes' events, on a
+ * single reader thread that hands them to the listener in broker order.
+ * <p>
+ * If the broker connection is lost, the reader reconnects with exponential backoff and
+ * subscribes again to every game this node is watching. Events published while it is
+ * down fail with an UncheckedIOException; events other nodes publish meanwhile are lost.
+ */
+public class SocketEventBus implements GameEventBus {
+    private final String host;
+    private final int port;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Set<Integer> subscribed = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<GameEvent> listener = event -> { };
+    private volatile boolean closed;
+    // Guarded by this; null while disconnected
+    private Socket socket;
+    private DataOutputStream out;
+
+    public SocketEventBus(String host, int port) throws IOException {
+        this(host, port, Duration.ofMillis(100), Duration.ofSeconds(5));
+    }
+
+    /**
+     * Connects once before returning, so a broker that is down at startup is reported.
+     */
+    SocketEventBus(String host, int port, Duration initialBackoff, Duration maxBackoff) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        DataInputStream in = connect();
+        Thread.ofVirtual().name("event-bus-reader").start(() -> readLoop(in));
+    }
+
+    @Override
+    public void setListener(Consumer<GameEvent> listener) {
+        this.listener = listener;
+    }
+
+    // A failed SUBSCRIBE or UNSUBSCRIBE needs no retry; reconnecting replays the subscribed set
+    @Override
+    public void subscribe(int gameID) {
+        if (subscribed.add(gameID)) {
+            tryWrite(SocketEventBroker.SUBSCRIBE, gameID);
+        }
+    }
+
+    @Override
+    public void unsubscribe(int gameID) {
+        if (subscribed.remove(gameID)) {
+            tryWrite(SocketEventBroker.UNSUBSCRIBE, gameID);
+        }
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+        try {
+            write(SocketEventBroker.PUBLISH, event.gameID(), event.toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Event bus unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        disconnect();
+    }
+
+    private DataInputStream connect() throws IOException {
+        Socket next = new Socket(host, port);
+        try {
+            // With the broker gone, a connect to its ephemeral port can be answered by itself
+            if (next.getLocalSocketAddress().equals(next.getRemoteSocketAddress())) {
+                throw new IOException("Connected to itself; no broker on port " + port);
+            }
+            next.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(next.getInputStream()));
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Event bus closed");
+                }
+                socket = next;
+                out = new DataOutputStream(new BufferedOutputStream(next.getOutputStream()));
+                // Under the lock, so no other write lands between these
+                for (int gameID : subscribed) {
+                    writeLocked(SocketEventBroker.SUBSCRIBE, gameID, null);
+                }
+                out.flush();
+            }
+            return in;
+        } catch (IOException e) {
+            synchronized (this) {
+                if (socket == next) {
+                    socket = null;
+                    out = null;
+                }
+            }
+            next.close();
+            throw e;
+        }
+    }
+
+    private synchronized void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        socket = null;
+        out = null;
+    }
+
+    private void tryWrite(byte op, int gameID) {
+        try {
+            write(op, gameID, null);
+        } catch (IOException e) {
+            System.err.println("Event bus unavailable, game " + gameID + " is resubscribed on reconnect: "
+                    + e.getMessage());
+        }
+    }
+
+    private synchronized void write(byte op, int gameID, byte[] event) throws IOException {
+        if (out == null) {
+            throw new IOException("Not connected to the event broker");
+        }
+        try {
+            writeLocked(op, gameID, event);
+            out.flush();
+        } catch (IOException e) {
+            // Wakes the reader so it starts reconnecting now
+            disconnect();
+            throw e;
+        }
+    }
+
+    private void writeLocked(byte op, int gameID, byte[] event) throws IOException {
+        out.writeByte(op);
+        out.writeInt(gameID);
+        if (event != null) {
+            out.writeInt(event.length);
+            out.write(event);
+        }
+    }
+
+    // Reconnects at once after a drop, then backs off between failed attempts
+    private void readLoop(DataInputStream connected) {
+        DataInputStream in = connected;
+        long backoff = initialBackoffMillis;
+        while (!closed) {
+            if (in == null) {
+                try {
+                    in = connect();
+                    backoff = initialBackoffMillis;
+                    System.err.println("Event bus reconnected to " + host + ":" + port);
+                } catch (IOException e) {
+                    if (!closed) {
+                        System.err.println("Event bus reconnect failed, retrying in " + backoff + " ms: "
+                                + e.getMessage());
+                    }
+                    backoff = sleep(backoff);
+                    continue;
+                }
+            }
+            try {
+                read(in);
+            } catch (EOFException e) {
+                if (!closed) {
+                    System.err.println("Event bus connection lost: broker closed the connection");
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Event bus connection lost: " + e.getMessage());
+                }
+            }
+            disconnect();
+            in = null;
+        }
+    }
+
+    private long sleep(long backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+        return Math.min(backoff * 2, maxBackoffMillis);
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        while (true) {
+            byte op = in.readByte();
+            int gameID = in.readInt();
+            byte[] data = in.readNBytes(in.readInt());
+            // Drop anything still in flight for a game this node just left
+            if (op == SocketEventBroker.PUBLISH && subscribed.contains(gameID)) {
+                dispatch(data);
+            }
+        }
+    }
+
+    private void dispatch(byte[] data) {
+        try {
+            listener.accept(GameEvent.fromBytes(data));
+        } catch (IOException e) {
+            System.err.println("Dropping malformed game event: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Game event listener failed: " + e.getMessage());
+        }
+    }
+}
@@ -6,72 +6,204 @@ import chess.ChessPosition;
 import chess.InvalidMoveException;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import dataaccess.MySqlDataAccess;
+import metrics.MetricsRegistry;
 import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
+import service.AuthTokens;
+import service.RetryPolicy;
+import service.StoredAuthTokens;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import websocket.commands.CommandCodec;
+import websocket.commands.CommandJsonAdapter;
+import websocket.commands.ConnectCommand;
+import websocket.commands.MakeMoveCommand;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.LobbyMessage;
+import websocket.messages.MoveMadeMessage;
 import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @WebSocket
 public class WebSocketHandler {
+    // Lobby subscribers are tracked, mailboxed and routed over the bus like a game no one can create
+    private static final int LOBBY_CHANNEL = 0;
 
-    private final Gson gson = new Gson();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(UserGameCommand.class, new CommandJsonAdapter())
+            .create();
     private static DataAccess dataAccess;
+    private static AuthTokens authTokens;
 
-    private static final ConcurrentHashMap<Integer, CopyOnWriteArraySet<Session>> GAME_SESSIONS = new ConcurrentHashMap<>();
+    private static final SessionRegistry GAME_SESSIONS = new SessionRegistry();
     private static final ConcurrentHashMap<Session, SessionInfo> SESSION_INFO = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Integer, Boolean> RESIGNED_GAMES = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Session, String> SESSION_MESSAGES = new ConcurrentHashMap<>();
-
+    private static final GameMailboxes MAILBOXES = new GameMailboxes();
+    private static final OutboundQueues OUTBOUND = new OutboundQueues();
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.GAME_UPDATES;
+    private static volatile GameEventBus eventBus = newBus(new InProcessEventBus());
+    private static final AtomicInteger OPEN_SESSIONS = new AtomicInteger();
+    private static volatile MetricsRegistry metrics = new MetricsRegistry();
+
+    /**
+     * Also resets token checks to the auths table; call setAuthTokens afterwards to use
+     * something else.
+     */
     public static void setDataAccess(DataAccess da) {
         dataAccess = da;
+        authTokens = new StoredAuthTokens(da);
+    }
+
+    public static void setAuthTokens(AuthTokens tokens) {
+        authTokens = tokens;
+    }
+
+    /**
+     * Routes broadcasts through bus so that sessions on other server nodes watching the
+     * same game receive them too. Defaults to a single-node InProcessEventBus.
+     */
+    public static void setEventBus(GameEventBus bus) {
+        eventBus = newBus(bus);
+    }
+
+    /**
+     * Records command metrics in registry from now on and registers the session and queue
+     * gauges there.
+     */
+    public static void setMetrics(MetricsRegistry registry) {
+        metrics = registry;
+        registry.gauge("chess_ws_open_sessions", "Open WebSocket sessions", OPEN_SESSIONS::get);
+        registry.gauge("chess_ws_games_with_sessions", "Games with at least one session on this node",
+                () -> GAME_SESSIONS.gameCount() - (GAME_SESSIONS.hasSessions(LOBBY_CHANNEL) ? 1 : 0));
+        registry.gauge("chess_ws_mailbox_pending", "Commands waiting for their game's mailbox", MAILBOXES::pending);
+        registry.gauge("chess_ws_outbound_queued", "Messages waiting in session outboxes", OUTBOUND::totalDepth);
+        registry.gauge("chess_ws_outbound_max_depth", "Deepest session outbox right now", OUTBOUND::maxDepth);
+        registry.gauge("chess_ws_outbound_peak_depth", "Deepest any session outbox has been since startup",
+                OUTBOUND::peakDepth);
+        registry.counter("chess_ws_outbound_dropped_boards_total", "Queued boards replaced by a newer one before sending",
+                OUTBOUND::droppedBoards);
+        registry.counter("chess_ws_slow_disconnects_total", "Sessions closed for not keeping up with their outbox",
+                OUTBOUND::disconnectedSessions);
+    }
+
+    private static GameEventBus newBus(GameEventBus bus) {
+        bus.setListener(WebSocketHandler::deliverEvent);
+        return bus;
     }
 
     @OnWebSocketConnect
     public void onConnect(Session session) throws Exception {
         System.out.println("WebSocket connection established");
+        OPEN_SESSIONS.incrementAndGet();
+        OUTBOUND.open(session);
     }
 
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("WebSocket connection closed");
+        OPEN_SESSIONS.decrementAndGet();
+        OUTBOUND.remove(session);
+        if (GAME_SESSIONS.remove(LOBBY_CHANNEL, session)) {
+            MAILBOXES.submit(LOBBY_CHANNEL, () -> syncSubscription(LOBBY_CHANNEL));
+        }
         SessionInfo info = SESSION_INFO.remove(session);
-        SESSION_MESSAGES.remove(session);
         if (info != null) {
-            CopyOnWriteArraySet<Session> sessions = GAME_SESSIONS.get(info.gameID());
-            if (sessions != null) {
-                sessions.remove(session);
-            }
+            GAME_SESSIONS.remove(info.gameID(), session);
+            MAILBOXES.submit(info.gameID(), () -> syncSubscription(info.gameID()));
         }
     }
 
     @OnWebSocketMessage
-    public void onMessage(Session session, String message) throws Exception {
-        SESSION_MESSAGES.put(session, message);
+    public void onMessage(Session session, String message) {
+        // One streaming parse straight into the right command subtype
+        UserGameCommand command;
+        try {
+            command = gson.fromJson(message, UserGameCommand.class);
+        } catch (JsonParseException e) {
+            sendError(session, "Error: Invalid command - " + e.getMessage());
+            return;
+        }
+        if (command == null) {
+            sendError(session, "Error: Invalid command");
+            return;
+        }
+        dispatch(session, command);
+    }
 
-        UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
+    @OnWebSocketMessage
+    public void onBinaryMessage(Session session, byte[] payload, int offset, int length) {
+        UserGameCommand command;
+        try {
+            command = CommandCodec.decode(ByteBuffer.wrap(payload, offset, length));
+        } catch (IllegalArgumentException e) {
+            sendError(session, "Error: Invalid command - " + e.getMessage());
+            return;
+        }
+        dispatch(session, command);
+    }
 
+    private void dispatch(Session session, UserGameCommand command) {
+        // Hand off from Jetty's I/O thread; commands for one game run one at a time, in order
+        boolean lobby = command.getCommandType() == UserGameCommand.CommandType.SUBSCRIBE_LOBBY
+                || command.getCommandType() == UserGameCommand.CommandType.UNSUBSCRIBE_LOBBY;
+        long submitted = System.nanoTime();
+        MAILBOXES.submit(lobby ? Integer.valueOf(LOBBY_CHANNEL) : command.getGameID(), () -> {
+            String type = command.getCommandType().name();
+            long started = System.nanoTime();
+            metrics.histogram("chess_ws_queue_wait_seconds", "Time a command waited for its game's mailbox",
+                    1e-6, "command", type).record((started - submitted) / 1_000);
+            try {
+                handle(session, command);
+            } finally {
+                metrics.counter("chess_ws_commands_total", "WebSocket commands handled", "command", type).increment();
+                metrics.histogram("chess_ws_command_seconds", "Time spent handling a command after its mailbox wait",
+                        1e-6, "command", type).recordSince(started);
+            }
+        });
+    }
+
+    private void handle(Session session, UserGameCommand command) {
         switch (command.getCommandType()) {
-            case CONNECT -> handleConnect(session, command);
-            case MAKE_MOVE -> handleMakeMove(session, command);
+            case CONNECT -> handleConnect(session, (ConnectCommand) command);
+            case MAKE_MOVE -> handleMakeMove(session, (MakeMoveCommand) command);
             case LEAVE -> handleLeave(session, command);
             case RESIGN -> handleResign(session, command);
+            case RESYNC -> handleResync(session, command);
+            case SUBSCRIBE_LOBBY -> handleSubscribeLobby(session, command);
+            case UNSUBSCRIBE_LOBBY -> handleUnsubscribeLobby(session);
         }
     }
 
-    private void handleConnect(Session session, UserGameCommand command) {
+    /*
+     * Records the time since start as one phase of command and returns the current time,
+     * so consecutive phases can be timed off a single running timestamp. Phases are auth,
+     * load, validate, persist and broadcast; a phase that runs once per retry is recorded
+     * once per attempt.
+     */
+    private static long lap(UserGameCommand command, String phase, long start) {
+        long now = System.nanoTime();
+        metrics.histogram("chess_ws_phase_seconds", "Time spent in each phase of a command", 1e-6,
+                "command", command.getCommandType().name(), "phase", phase).record((now - start) / 1_000);
+        return now;
+    }
+
+    private void handleConnect(Session session, ConnectCommand command) {
         try {
             if (command.getAuthToken() == null || command.getAuthToken().trim().isEmpty()) {
                 sendError(session, "Error: Invalid auth token");
@@ -83,7 +215,9 @@ public class WebSocketHandler {
                 return;
             }
 
-            var authData = dataAccess.getAuth(command.getAuthToken());
+            long phaseStart = System.nanoTime();
+            var authData = authTokens.validate(command.getAuthToken());
+            phaseStart = lap(command, "auth", phaseStart);
             if (authData == null) {
                 sendError(session, "Error: Invalid auth token");
                 return;
@@ -91,28 +225,35 @@ public class WebSocketHandler {
             String username = authData.getUsername();
 
             GameData gameData = dataAccess.getGame(command.getGameID());
+            phaseStart = lap(command, "load", phaseStart);
             if (gameData == null) {
                 sendError(session, "Error: Game not found");
                 return;
             }
 
-            GAME_SESSIONS.computeIfAbsent(command.getGameID(), k -> new CopyOnWriteArraySet<>()).add(session);
+            boolean isWhitePlayer = username.equals(gameData.getWhiteUsername());
+            boolean isBlackPlayer = username.equals(gameData.getBlackUsername());
 
             String role;
-            if (username.equals(gameData.getWhiteUsername())) {
+            if (isWhitePlayer) {
                 role = username + " joined as white player";
-            } else if (username.equals(gameData.getBlackUsername())) {
+            } else if (isBlackPlayer) {
                 role = username + " joined as black player";
             } else {
                 role = username + " joined as observer";
             }
 
-            SESSION_INFO.put(session, new SessionInfo(username, command.getGameID(), role));
+            // Registered before joining the game so broadcasts always find its preferences
+            SESSION_INFO.put(session, new SessionInfo(UUID.randomUUID().toString(), username,
+                    command.getGameID(), role, command.wantsDeltaUpdates(), command.wantsBinaryFrames()));
+            GAME_SESSIONS.add(command.getGameID(), session, isWhitePlayer || isBlackPlayer);
+            syncSubscription(command.getGameID());
 
-            LoadGameMessage loadMessage = new LoadGameMessage(gameData.getGame());
+            LoadGameMessage loadMessage = new LoadGameMessage(gameData.getGame(), gameData.getVersion());
             sendMessage(session, loadMessage);
             NotificationMessage notification = new NotificationMessage(role);
             broadcastToOthers(command.getGameID(), session, notification);
+            lap(command, "broadcast", phaseStart);
 
         } catch (DataAccessException e) {
             sendError(session, "Error: " + e.getMessage());
@@ -121,13 +262,8 @@ public class WebSocketHandler {
         }
     }
 
-    private void handleMakeMove(Session session, UserGameCommand command) {
+    private void handleMakeMove(Session session, MakeMoveCommand command) {
         try {
-            if (RESIGNED_GAMES.getOrDefault(command.getGameID(), false)) {
-                sendError(session, "Error: Game is over due to resignation");
-                return;
-            }
-
             if (command.getAuthToken() == null || command.getAuthToken().trim().isEmpty()) {
                 sendError(session, "Error: Invalid auth token");
                 return;
@@ -137,101 +273,160 @@ public class WebSocketHandler {
                 return;
             }
 
-            var authData = dataAccess.getAuth(command.getAuthToken());
+            long phaseStart = System.nanoTime();
+            var authData = authTokens.validate(command.getAuthToken());
+            phaseStart = lap(command, "auth", phaseStart);
             if (authData == null) {
                 sendError(session, "Error: Invalid auth token");
                 return;
             }
             String username = authData.getUsername();
 
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData == null) {
-                sendError(session, "Error: Game not found");
+            ChessMove move = command.getMove();
+            if (move == null) {
+                sendError(session, "Error: Invalid move command");
                 return;
             }
 
-            ChessGame game = gameData.getGame();
-
-            if (isGameOver(command.getGameID(), game)) {
-                sendError(session, "Error: Game is over");
-                return;
-            }
+            // Read-validate-write under optimistic concurrency: if another writer changed the
+            // game between our read and our update, start over from a fresh read.
+            GameData gameData;
+            ChessGame game;
+            ChessGame.TeamColor playerColor;
+            MoveMadeMessage.GameStatus status;
+            for (int attempt = 1; ; attempt++) {
+                gameData = dataAccess.getGame(command.getGameID());
+                phaseStart = lap(command, "load", phaseStart);
+                if (gameData == null) {
+                    sendError(session, "Error: Game not found");
+                    return;
+                }
 
-            ChessMove move = null;
-            try {
-                String originalMessage = SESSION_MESSAGES.get(session);
-                if (originalMessage != null) {
-                    com.google.gson.JsonObject jsonObject = gson.fromJson(originalMessage, com.google.gson.JsonObject.class);
-                    if (jsonObject.has("move")) {
-                        move = gson.fromJson(jsonObject.get("move"), ChessMove.class);
-                    }
+                if (gameData.isOver()) {
+                    sendError(session, "Error: Game is over");
+                    return;
                 }
 
-                if (move == null) {
-                    sendError(session, "Error: Invalid move command");
+                game = gameData.getGame();
+
+                if (username.equals(gameData.getWhiteUsername())) {
+                    playerColor = ChessGame.TeamColor.WHITE;
+                } else if (username.equals(gameData.getBlackUsername())) {
+                    playerColor = ChessGame.TeamColor.BLACK;
+                } else {
+                    sendError(session, "Error: Observer cannot make moves");
                     return;
                 }
-            } catch (Exception e) {
-                sendError(session, "Error: Invalid move format");
-                return;
-            }
 
-            ChessGame.TeamColor playerColor = null;
-            if (username.equals(gameData.getWhiteUsername())) {
-                playerColor = ChessGame.TeamColor.WHITE;
-            } else if (username.equals(gameData.getBlackUsername())) {
-                playerColor = ChessGame.TeamColor.BLACK;
-            } else {
-                sendError(session, "Error: Observer cannot make moves");
-                return;
-            }
+                if (game.getTeamTurn() != playerColor) {
+                    sendError(session, "Error: Not your turn");
+                    return;
+                }
 
-            if (game.getTeamTurn() != playerColor) {
-                sendError(session, "Error: Not your turn");
-                return;
-            }
+                try {
+                    game.makeMove(move);
+                } catch (InvalidMoveException e) {
+                    sendError(session, "Error: Invalid move - " + e.getMessage());
+                    return;
+                }
 
-            try {
-                game.makeMove(move);
-            } catch (InvalidMoveException e) {
-                sendError(session, "Error: Invalid move - " + e.getMessage());
-                return;
+                // A move that ends the game records the outcome in the same update
+                status = statusAfterMove(game, playerColor);
+                GameData updatedGameData = gameData.withGame(game);
+                if (status == MoveMadeMessage.GameStatus.CHECKMATE) {
+                    updatedGameData = updatedGameData.withOutcome(playerColor == ChessGame.TeamColor.WHITE ?
+                            GameData.Result.WHITE_WON : GameData.Result.BLACK_WON, GameData.Termination.CHECKMATE);
+                } else if (status == MoveMadeMessage.GameStatus.STALEMATE) {
+                    updatedGameData = updatedGameData.withOutcome(GameData.Result.DRAW, GameData.Termination.STALEMATE);
+                }
+                phaseStart = lap(command, "validate", phaseStart);
+                boolean updated = dataAccess.updateGame(updatedGameData);
+                phaseStart = lap(command, "persist", phaseStart);
+                if (updated) {
+                    break;
+                }
+                if (!RETRY_POLICY.shouldRetry(attempt)) {
+                    sendError(session, "Error: Game is busy, please try again");
+                    return;
+                }
+                RETRY_POLICY.backoff(attempt);
+                phaseStart = System.nanoTime();
             }
 
-            GameData updatedGameData = new GameData(gameData.getGameID(), gameData.getWhiteUsername(),
-                    gameData.getBlackUsername(), gameData.getGameName(), game);
-            dataAccess.updateGame(updatedGameData);
-
-            LoadGameMessage loadMessage = new LoadGameMessage(game);
-            broadcastToAll(command.getGameID(), loadMessage);
+            broadcastMove(command.getGameID(), game, move, gameData.getVersion() + 1, status);
 
             String moveDescription = formatMove(move, playerColor);
             NotificationMessage moveNotification = new NotificationMessage(username + " made move: " + moveDescription);
             broadcastToOthers(command.getGameID(), session, moveNotification);
 
-            ChessGame.TeamColor oppositeColor = (playerColor == ChessGame.TeamColor.WHITE) ?
-                    ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
-
-            if (game.isInCheckmate(oppositeColor)) {
-                String opponentUsername = (oppositeColor == ChessGame.TeamColor.WHITE) ?
-                        gameData.getWhiteUsername() : gameData.getBlackUsername();
-                NotificationMessage checkmateNotification = new NotificationMessage(opponentUsername + " is in checkmate");
-                broadcastToAll(command.getGameID(), checkmateNotification);
-            } else if (game.isInCheck(oppositeColor)) {
-                String opponentUsername = (oppositeColor == ChessGame.TeamColor.WHITE) ?
-                        gameData.getWhiteUsername() : gameData.getBlackUsername();
-                NotificationMessage checkNotification = new NotificationMessage(opponentUsername + " is in check");
-                broadcastToAll(command.getGameID(), checkNotification);
-            } else if (game.isInStalemate(oppositeColor)) {
-                NotificationMessage stalemateNotification = new NotificationMessage("Game ended in stalemate");
-                broadcastToAll(command.getGameID(), stalemateNotification);
+            String opponentUsername = (playerColor == ChessGame.TeamColor.WHITE) ?
+                    gameData.getBlackUsername() : gameData.getWhiteUsername();
+
+            switch (status) {
+                case CHECKMATE -> broadcastToAll(command.getGameID(),
+                        new NotificationMessage(opponentUsername + " is in checkmate"));
+                case CHECK -> broadcastToAll(command.getGameID(),
+                        new NotificationMessage(opponentUsername + " is in check"));
+                case STALEMATE -> broadcastToAll(command.getGameID(),
+                        new NotificationMessage("Game ended in stalemate"));
+                case IN_PROGRESS -> {
+                }
+            }
+            if (status == MoveMadeMessage.GameStatus.CHECKMATE || status == MoveMadeMessage.GameStatus.STALEMATE) {
+                publishLobby(LobbyMessage.Change.FINISHED, command.getGameID());
             }
+            lap(command, "broadcast", phaseStart);
+
+        } catch (DataAccessException e) {
+            sendError(session, "Error: " + e.getMessage());
+        }
+    }
 
+    // Resends the full game to a delta client whose local copy no longer matches
+    private void handleResync(Session session, UserGameCommand command) {
+        try {
+            if (command.getAuthToken() == null || authTokens.validate(command.getAuthToken()) == null) {
+                sendError(session, "Error: Invalid auth token");
+                return;
+            }
+            GameData gameData = command.getGameID() == null ? null : dataAccess.getGame(command.getGameID());
+            if (gameData == null) {
+                sendError(session, "Error: Game not found");
+                return;
+            }
+            sendMessage(session, new LoadGameMessage(gameData.getGame(), gameData.getVersion()));
         } catch (DataAccessException e) {
             sendError(session, "Error: " + e.getMessage());
         }
     }
 
+    /*
+     * Subscribes before reading the snapshot, so a change committed after the read is still
+     * pushed. One committed before it may arrive as well, ahead of or after the snapshot;
+     * clients sort that out by version.
+     */
+    private void handleSubscribeLobby(Session session, UserGameCommand command) {
+        try {
+            if (command.getAuthToken() == null || authTokens.validate(command.getAuthToken()) == null) {
+                sendError(session, "Error: Invalid auth token");
+                return;
+            }
+            GAME_SESSIONS.add(LOBBY_CHANNEL, session, false);
+            syncSubscription(LOBBY_CHANNEL);
+
+            List<GameData> games = new ArrayList<>();
+            dataAccess.forEachGame(false, game -> games.add(LobbyMessage.summaryOf(game)));
+            sendMessage(session, new LobbyMessage(LobbyMessage.Change.SNAPSHOT, games));
+        } catch (DataAccessException | IOException e) {
+            sendError(session, "Error: " + e.getMessage());
+        }
+    }
+
+    private void handleUnsubscribeLobby(Session session) {
+        GAME_SESSIONS.remove(LOBBY_CHANNEL, session);
+        syncSubscription(LOBBY_CHANNEL);
+    }
+
     private void handleLeave(Session session, UserGameCommand command) {
         try {
             if (command.getAuthToken() == null || command.getAuthToken().trim().isEmpty()) {
@@ -243,40 +438,58 @@ public class WebSocketHandler {
                 return;
             }
 
-            var authData = dataAccess.getAuth(command.getAuthToken());
+            long phaseStart = System.nanoTime();
+            var authData = authTokens.validate(command.getAuthToken());
+            phaseStart = lap(command, "auth", phaseStart);
             if (authData == null) {
                 sendError(session, "Error: Invalid auth token");
                 return;
             }
             String username = authData.getUsername();
 
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData == null) {
-                sendError(session, "Error: Game not found");
-                return;
-            }
+            boolean leftSeat = false;
+            for (int attempt = 1; ; attempt++) {
+                GameData gameData = dataAccess.getGame(command.getGameID());
+                phaseStart = lap(command, "load", phaseStart);
+                if (gameData == null) {
+                    sendError(session, "Error: Game not found");
+                    return;
+                }
 
-            boolean isPlayer = username.equals(gameData.getWhiteUsername()) ||
-                    username.equals(gameData.getBlackUsername());
+                boolean isPlayer = username.equals(gameData.getWhiteUsername()) ||
+                        username.equals(gameData.getBlackUsername());
+                if (!isPlayer) {
+                    break;
+                }
 
-            if (isPlayer) {
                 String newWhiteUsername = username.equals(gameData.getWhiteUsername()) ? null : gameData.getWhiteUsername();
                 String newBlackUsername = username.equals(gameData.getBlackUsername()) ? null : gameData.getBlackUsername();
 
-                GameData updatedGameData = new GameData(gameData.getGameID(), newWhiteUsername,
-                        newBlackUsername, gameData.getGameName(), gameData.getGame());
-                dataAccess.updateGame(updatedGameData);
+                GameData updatedGameData = gameData.withPlayers(newWhiteUsername, newBlackUsername);
+                boolean updated = dataAccess.updateGame(updatedGameData);
+                phaseStart = lap(command, "persist", phaseStart);
+                if (updated) {
+                    leftSeat = true;
+                    break;
+                }
+                if (!RETRY_POLICY.shouldRetry(attempt)) {
+                    sendError(session, "Error: Game is busy, please try again");
+                    return;
+                }
+                RETRY_POLICY.backoff(attempt);
+                phaseStart = System.nanoTime();
             }
 
-            CopyOnWriteArraySet<Session> sessions = GAME_SESSIONS.get(command.getGameID());
-            if (sessions != null) {
-                sessions.remove(session);
-            }
-            SESSION_INFO.remove(session);
-            SESSION_MESSAGES.remove(session);
+            GAME_SESSIONS.remove(command.getGameID(), session);
+            SessionInfo info = SESSION_INFO.remove(session);
+            syncSubscription(command.getGameID());
 
             NotificationMessage notification = new NotificationMessage(username + " left the game");
-            broadcastToOthers(command.getGameID(), session, notification);
+            publish(command.getGameID(), info, notification);
+            if (leftSeat) {
+                publishLobby(LobbyMessage.Change.LEFT, command.getGameID());
+            }
+            lap(command, "broadcast", phaseStart);
 
         } catch (DataAccessException e) {
             sendError(session, "Error: " + e.getMessage());
@@ -294,62 +507,87 @@ public class WebSocketHandler {
                 return;
             }
 
-            var authData = dataAccess.getAuth(command.getAuthToken());
+            long phaseStart = System.nanoTime();
+            var authData = authTokens.validate(command.getAuthToken());
+            phaseStart = lap(command, "auth", phaseStart);
             if (authData == null) {
                 sendError(session, "Error: Invalid auth token");
                 return;
             }
             String username = authData.getUsername();
 
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData == null) {
-                sendError(session, "Error: Game not found");
-                return;
-            }
+            for (int attempt = 1; ; attempt++) {
+                GameData gameData = dataAccess.getGame(command.getGameID());
+                phaseStart = lap(command, "load", phaseStart);
+                if (gameData == null) {
+                    sendError(session, "Error: Game not found");
+                    return;
+                }
 
-            ChessGame game = gameData.getGame();
+                if (gameData.isOver()) {
+                    sendError(session, "Error: Game is already over");
+                    return;
+                }
 
-            if (isGameOver(command.getGameID(), game)) {
-                sendError(session, "Error: Game is already over");
-                return;
-            }
+                boolean isWhitePlayer = username.equals(gameData.getWhiteUsername());
+                boolean isBlackPlayer = username.equals(gameData.getBlackUsername());
 
-            boolean isWhitePlayer = username.equals(gameData.getWhiteUsername());
-            boolean isBlackPlayer = username.equals(gameData.getBlackUsername());
+                if (!isWhitePlayer && !isBlackPlayer) {
+                    sendError(session, "Error: Observer cannot resign");
+                    return;
+                }
 
-            if (!isWhitePlayer && !isBlackPlayer) {
-                sendError(session, "Error: Observer cannot resign");
-                return;
+                GameData.Result result = isWhitePlayer ? GameData.Result.BLACK_WON : GameData.Result.WHITE_WON;
+                boolean updated = dataAccess.updateGame(gameData.withOutcome(result, GameData.Termination.RESIGNATION));
+                phaseStart = lap(command, "persist", phaseStart);
+                if (updated) {
+                    break;
+                }
+                if (!RETRY_POLICY.shouldRetry(attempt)) {
+                    sendError(session, "Error: Game is busy, please try again");
+                    return;
+                }
+                RETRY_POLICY.backoff(attempt);
+                phaseStart = System.nanoTime();
             }
 
-            RESIGNED_GAMES.put(command.getGameID(), true);
-
             NotificationMessage resignNotification = new NotificationMessage(username + " resigned. Game is over.");
             broadcastToAll(command.getGameID(), resignNotification);
+            publishLobby(LobbyMessage.Change.FINISHED, command.getGameID());
+            lap(command, "broadcast", phaseStart);
 
         } catch (DataAccessException e) {
             sendError(session, "Error: " + e.getMessage());
         }
     }
 
-    private boolean isGameOver(Integer gameID, ChessGame game) {
-        if (RESIGNED_GAMES.getOrDefault(gameID, false)) {
-            return true;
-        }
+    private void broadcastToAll(Integer gameID, ServerMessage message) {
+        broadcastToOthers(gameID, null, message);
+    }
 
-        return game.isInCheckmate(ChessGame.TeamColor.WHITE) ||
-                game.isInCheckmate(ChessGame.TeamColor.BLACK) ||
-                game.isInStalemate(ChessGame.TeamColor.WHITE) ||
-                game.isInStalemate(ChessGame.TeamColor.BLACK);
+    /*
+     * Sends the new position to everyone in the game: a MOVE_MADE delta to sessions that
+     * negotiated it and a full LOAD_GAME to the rest.
+     */
+    private void broadcastMove(Integer gameID, ChessGame game, ChessMove move, int sequence,
+                               MoveMadeMessage.GameStatus status) {
+        publish(new GameEvent(gameID, null, new LoadGameMessage(game, sequence),
+                new MoveMadeMessage(move, status, game.positionHash(), sequence)));
     }
 
-    private void broadcastToAll(Integer gameID, Object message) {
-        CopyOnWriteArraySet<Session> sessions = GAME_SESSIONS.get(gameID);
-        if (sessions != null) {
-            for (Session session : sessions) {
-                sendMessage(session, message);
-            }
+    private static MoveMadeMessage.GameStatus statusAfterMove(ChessGame game, ChessGame.TeamColor playerColor) {
+        ChessGame.TeamColor opponent = playerColor == ChessGame.TeamColor.WHITE ?
+                ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (game.isInCheckmate(opponent)) {
+            return MoveMadeMessage.GameStatus.CHECKMATE;
+        }
+        if (game.isInStalemate(opponent)) {
+            return MoveMadeMessage.GameStatus.STALEMATE;
         }
+        if (game.isInCheck(opponent)) {
+            return MoveMadeMessage.GameStatus.CHECK;
+        }
+        return MoveMadeMessage.GameStatus.IN_PROGRESS;
     }
 
     private String formatMove(ChessMove move, ChessGame.TeamColor playerColor) {
@@ -369,28 +607,101 @@ public class WebSocketHandler {
         return "" + col + position.getRow();
     }
 
-    private void sendMessage(Session session, Object message) {
-        try {
-            session.getRemote().sendString(gson.toJson(message));
-        } catch (IOException e) {
-            System.err.println("Error sending message: " + e.getMessage());
-        }
+    private void sendMessage(Session session, ServerMessage message) {
+        deliver(session, new EncodedMessage(message));
+    }
+
+    // Never blocks on the client; picks the frame type the session negotiated at CONNECT
+    private static void deliver(Session session, EncodedMessage message) {
+        SessionInfo info = SESSION_INFO.get(session);
+        OUTBOUND.send(session, message.frameFor(info != null && info.binaryFrames()));
     }
 
     private void sendError(Session session, String errorMessage) {
+        metrics.counter("chess_ws_errors_total", "ERROR messages sent to a client").increment();
         sendMessage(session, new ErrorMessage(errorMessage));
     }
 
-    private void broadcastToOthers(Integer gameID, Session excludeSession, Object message) {
-        CopyOnWriteArraySet<Session> sessions = GAME_SESSIONS.get(gameID);
-        if (sessions != null) {
-            for (Session session : sessions) {
-                if (!session.equals(excludeSession)) {
-                    sendMessage(session, message);
-                }
+    private void broadcastToOthers(Integer gameID, Session excludeSession, ServerMessage message) {
+        publish(gameID, excludeSession == null ? null : SESSION_INFO.get(excludeSession), message);
+    }
+
+    private static void publish(Integer gameID, SessionInfo exclude, ServerMessage message) {
+        publish(new GameEvent(gameID, exclude == null ? null : exclude.sessionId(), message, null));
+    }
+
+    /*
+     * Callers publish after their write has committed, so a bus failure must not fail them.
+     * While the bus is down the event still reaches this node's sessions directly; other
+     * nodes miss it.
+     */
+    private static void publish(GameEvent event) {
+        try {
+            eventBus.publish(event);
+        } catch (RuntimeException e) {
+            metrics.counter("chess_ws_bus_publish_failures_total", "Events the event bus failed to publish")
+                    .increment();
+            System.err.println("Could not publish event for game " + event.gameID() + ", delivering locally: "
+                    + e.getMessage());
+            deliverEvent(event);
+        }
+    }
+
+    /**
+     * Pushes a game's current seats and result to lobby subscribers on every node. The game
+     * is read here, so call this after the write it reports. Failures are only logged; the
+     * write itself already succeeded.
+     */
+    public static void publishLobby(LobbyMessage.Change change, int gameID) {
+        try {
+            GameData game = dataAccess.getGame(gameID);
+            if (game != null) {
+                publish(LOBBY_CHANNEL, null, new LobbyMessage(change, List.of(LobbyMessage.summaryOf(game))));
             }
+        } catch (DataAccessException e) {
+            System.err.println("Could not publish lobby change for game " + gameID + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tells lobby subscribers on every node that all games are gone. Like publishLobby,
+     * failures are only logged.
+     */
+    public static void publishLobbyCleared() {
+        publish(LOBBY_CHANNEL, null, new LobbyMessage(LobbyMessage.Change.CLEARED, List.of()));
+    }
+
+    /*
+     * Delivers an event from the bus to this node's sessions in its game. Each form is
+     * encoded at most once per protocol and the payload is shared by every recipient.
+     */
+    private static void deliverEvent(GameEvent event) {
+        EncodedMessage full = new EncodedMessage(event.message());
+        EncodedMessage delta = event.delta() == null ? full : new EncodedMessage(event.delta());
+        int[] recipients = new int[1];
+        GAME_SESSIONS.forEach(event.gameID(), session -> {
+            SessionInfo info = SESSION_INFO.get(session);
+            if (info == null || !info.sessionId().equals(event.excludedSessionId())) {
+                deliver(session, info != null && info.deltaUpdates() ? delta : full);
+                recipients[0]++;
+            }
+        });
+        metrics.histogram("chess_ws_fanout_sessions", "Sessions on this node each event was delivered to", 1,
+                "channel", event.gameID() == LOBBY_CHANNEL ? "lobby" : "game").record(recipients[0]);
+    }
+
+    /*
+     * Keeps this node subscribed to a game exactly while it has sessions there. Always run
+     * on the game's mailbox, so subscribe and unsubscribe calls for a game never race.
+     */
+    private static void syncSubscription(int gameID) {
+        if (GAME_SESSIONS.hasSessions(gameID)) {
+            eventBus.subscribe(gameID);
+        } else {
+            eventBus.unsubscribe(gameID);
         }
     }
 
-    private record SessionInfo(String username, Integer gameID, String role) {}
+    private record SessionInfo(String sessionId, String username, Integer gameID, String role,
+                               boolean deltaUpdates, boolean binaryFrames) {}
 }
\ No newline at end of file
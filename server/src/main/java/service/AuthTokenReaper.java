@@ -0,0 +1,85 @@
+package service;
+
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically deletes auth tokens that have gone unused for longer than the TTL. Each
+ * run deletes in batches of batchSize until a batch comes back short, so a large backlog
+ * never holds one long delete open against the auths table.
+ */
+public class AuthTokenReaper implements AutoCloseable {
+    private final DataAccess dataAccess;
+    private final long ttlMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "auth-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long tokens = -1;
+    private volatile long lastReaped;
+    private volatile long totalReaped;
+    private volatile long lastRunMillis;
+
+    public AuthTokenReaper(DataAccess dataAccess, Duration ttl, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.dataAccess = dataAccess;
+        this.ttlMillis = ttl.toMillis();
+        this.batchSize = batchSize;
+    }
+
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reap();
+            } catch (DataAccessException e) {
+                System.err.println("Auth token reaper failed: " + e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deletes every token that has expired by now.
+     *
+     * @return the number of tokens deleted
+     */
+    public synchronized int reap() throws DataAccessException {
+        long start = System.nanoTime();
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        int reaped = 0;
+        int batch;
+        do {
+            batch = dataAccess.deleteExpiredAuths(cutoff, batchSize);
+            reaped += batch;
+        } while (batch == batchSize);
+
+        tokens = dataAccess.countAuths();
+        lastReaped = reaped;
+        totalReaped += reaped;
+        lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return reaped;
+    }
+
+    /**
+     * @return table size and deletions as of the last run; tokens is -1 before the first
+     */
+    public Stats stats() {
+        return new Stats(tokens, lastReaped, totalReaped, lastRunMillis);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public record Stats(long tokens, long lastReaped, long totalReaped, long lastRunMillis) {}
+}
@@ -0,0 +1,28 @@
+package service;
+
+import dataaccess.DataAccessException;
+import model.AuthData;
+
+/**
+ * Issues and checks the tokens clients send in the authorization header and in WebSocket
+ * commands.
+ */
+public interface AuthTokens {
+
+    AuthData issue(String username) throws DataAccessException;
+
+    /**
+     * @return the token and its owner, or null if the token is unknown, revoked or expired
+     */
+    AuthData validate(String authToken) throws DataAccessException;
+
+    /**
+     * @return false if the token was not valid to begin with
+     */
+    boolean revoke(String authToken) throws DataAccessException;
+
+    /**
+     * Invalidates every token issued so far. Called when the database is cleared.
+     */
+    void revokeAll() throws DataAccessException;
+}
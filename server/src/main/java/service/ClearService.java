@@ -5,12 +5,19 @@ import dataaccess.DataAccessException;
 
 public class ClearService {
     private final DataAccess dataAccess;
+    private final AuthTokens authTokens;
 
     public ClearService(DataAccess dataAccess) {
+        this(dataAccess, new StoredAuthTokens(dataAccess));
+    }
+
+    public ClearService(DataAccess dataAccess, AuthTokens authTokens) {
         this.dataAccess = dataAccess;
+        this.authTokens = authTokens;
     }
 
     public void clear() throws DataAccessException {
         dataAccess.clear();
+        authTokens.revokeAll();
     }
 }
@@ -5,27 +5,88 @@ import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
 import model.AuthData;
 import model.GameData;
+import java.io.IOException;
 import java.util.Collection;
 
 public class GameService {
     private final DataAccess dataAccess;
+    private final RetryPolicy retryPolicy;
+    private final AuthTokens authTokens;
 
     public GameService(DataAccess dataAccess) {
+        this(dataAccess, RetryPolicy.GAME_UPDATES);
+    }
+
+    public GameService(DataAccess dataAccess, RetryPolicy retryPolicy) {
+        this(dataAccess, retryPolicy, new StoredAuthTokens(dataAccess));
+    }
+
+    public GameService(DataAccess dataAccess, RetryPolicy retryPolicy, AuthTokens authTokens) {
         this.dataAccess = dataAccess;
+        this.retryPolicy = retryPolicy;
+        this.authTokens = authTokens;
     }
 
     public ListGamesResult listGames(String authToken) throws DataAccessException {
-        AuthData auth = dataAccess.getAuth(authToken);
+        return listGames(authToken, false);
+    }
+
+    /**
+     * @param activeOnly true to leave out games that already have a result
+     */
+    public ListGamesResult listGames(String authToken, boolean activeOnly) throws DataAccessException {
+        AuthData auth = authTokens.validate(authToken);
         if (auth == null) {
             throw new DataAccessException("Error: unauthorized");
         }
 
-        Collection<GameData> games = dataAccess.listGames();
+        Collection<GameData> games = activeOnly ? dataAccess.listActiveGames() : dataAccess.listGames();
         return new ListGamesResult(games);
     }
 
+    /**
+     * Conditional form of listGames for HTTP polling. The ETag is derived from the games
+     * version read before listing, so a later listing with the same tag cannot differ.
+     *
+     * The games themselves are not read here. The returned listing visits them from the
+     * store when the caller is ready to write them out, one at a time, so a large lobby is
+     * never held in memory as a whole.
+     *
+     * @param ifNoneMatch the client's If-None-Match header, or null
+     * @return the current ETag, and null games when it matches ifNoneMatch
+     */
+    public ConditionalListing listGamesIfChanged(String authToken, boolean activeOnly, String ifNoneMatch)
+            throws DataAccessException {
+        AuthData auth = authTokens.validate(authToken);
+        if (auth == null) {
+            throw new DataAccessException("Error: unauthorized");
+        }
+
+        String etag = "\"g" + dataAccess.gamesVersion() + (activeOnly ? "a" : "") + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            return new ConditionalListing(etag, null);
+        }
+        return new ConditionalListing(etag, visitor -> dataAccess.forEachGame(activeOnly, visitor));
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public CreateGameResult createGame(CreateGameRequest request, String authToken) throws DataAccessException {
-        AuthData auth = dataAccess.getAuth(authToken);
+        AuthData auth = authTokens.validate(authToken);
         if (auth == null) {
             throw new DataAccessException("Error: unauthorized");
         }
@@ -42,7 +103,7 @@ public class GameService {
     }
 
     public void joinGame(JoinGameRequest request, String authToken) throws DataAccessException {
-        AuthData auth = dataAccess.getAuth(authToken);
+        AuthData auth = authTokens.validate(authToken);
         if (auth == null) {
             throw new DataAccessException("Error: unauthorized");
         }
@@ -51,13 +112,7 @@ public class GameService {
             throw new DataAccessException("Error: bad request");
         }
 
-        GameData game = dataAccess.getGame(request.gameID());
-        if (game == null) {
-            throw new DataAccessException("Error: bad request");
-        }
-
         String username = auth.getUsername();
-        GameData updatedGame;
 
         // Debug logging
         System.out.println("PlayerColor received: '" + request.playerColor() + "' (length: " + 
@@ -75,23 +130,44 @@ public class GameService {
             throw new DataAccessException("Error: bad request");
         }
 
-        // Now we know playerColor is either "WHITE" or "BLACK"
-        if ("WHITE".equals(request.playerColor())) {
-            if (game.getWhiteUsername() != null) {
-                throw new DataAccessException("Error: already taken");
+        // Seat assignment is a compare-and-set on the game's version, so two players
+        // racing for the same seat cannot both win; the loser re-reads and sees it taken.
+        for (int attempt = 1; ; attempt++) {
+            GameData game = dataAccess.getGame(request.gameID());
+            if (game == null) {
+                throw new DataAccessException("Error: bad request");
+            }
+
+            GameData updatedGame;
+            if ("WHITE".equals(request.playerColor())) {
+                if (game.getWhiteUsername() != null) {
+                    throw new DataAccessException("Error: already taken");
+                }
+                updatedGame = game.withPlayers(username, game.getBlackUsername());
+            } else { // Must be "BLACK"
+                if (game.getBlackUsername() != null) {
+                    throw new DataAccessException("Error: already taken");
+                }
+                updatedGame = game.withPlayers(game.getWhiteUsername(), username);
             }
-            updatedGame = new GameData(game.getGameID(), username, game.getBlackUsername(), game.getGameName(), game.getGame());
-            dataAccess.updateGame(updatedGame);
-        } else { // Must be "BLACK"
-            if (game.getBlackUsername() != null) {
-                throw new DataAccessException("Error: already taken");
+
+            if (dataAccess.updateGame(updatedGame)) {
+                return;
             }
-            updatedGame = new GameData(game.getGameID(), game.getWhiteUsername(), username, game.getGameName(), game.getGame());
-            dataAccess.updateGame(updatedGame);
+            if (!retryPolicy.shouldRetry(attempt)) {
+                throw new DataAccessException("Error: game is busy, please try again");
+            }
+            retryPolicy.backoff(attempt);
         }
     }
 
     public record ListGamesResult(Collection<GameData> games) {}
+    public record ConditionalListing(String etag, GameCursor games) {}
+
+    @FunctionalInterface
+    public interface GameCursor {
+        void forEach(DataAccess.GameVisitor visitor) throws DataAccessException, IOException;
+    }
     public record CreateGameRequest(String gameName) {}
     public record CreateGameResult(int gameID) {}
     public record JoinGameRequest(String playerColor, int gameID) {}
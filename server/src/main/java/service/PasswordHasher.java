@@ -0,0 +1,176 @@
+package service;
+
+import dataaccess.DataAccessException;
+import dataaccess.PasswordHashes;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool so a burst of logins
+ * cannot occupy every request thread with CPU-bound work. The pool has a fixed number of
+ * threads and a bounded queue; once both are full, new work is refused at once with
+ * "Error: server busy", which the server reports as 503, rather than queuing requests
+ * until they time out.
+ */
+public class PasswordHasher implements AutoCloseable {
+    static final int MIN_COST = 10;
+    static final int MAX_COST = 16;
+
+    private final int cost;
+    private final ThreadPoolExecutor pool;
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param cost          BCrypt log2 work factor, 4 to 31
+     * @param threads       threads doing BCrypt work
+     * @param queueCapacity requests allowed to wait for a thread before new ones are refused
+     */
+    public PasswordHasher(int cost, int threads, int queueCapacity) {
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("BCrypt cost must be between 4 and 31");
+        }
+        this.cost = cost;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "bcrypt-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /*
+     * Sized from chess.bcrypt.threads (default one per processor) and
+     * chess.bcrypt.queueCapacity (default 16 per thread). The cost is chess.bcrypt.cost if
+     * set, otherwise whatever the startup benchmark picked for chess.bcrypt.targetMillis.
+     */
+    public static PasswordHasher fromSystemProperties() {
+        int threads = Integer.getInteger("chess.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+        Integer cost = Integer.getInteger("chess.bcrypt.cost");
+        return new PasswordHasher(cost != null ? cost : BenchmarkedCost.VALUE, threads,
+                Integer.getInteger("chess.bcrypt.queueCapacity", threads * 16));
+    }
+
+    /**
+     * Times BCrypt on this host and returns the highest cost whose hash or verify takes no
+     * longer than targetMillis, clamped to MIN_COST..MAX_COST. Each cost step doubles the
+     * work, so a few cheap samples at a low cost are enough to extrapolate.
+     */
+    public static int benchmarkCost(long targetMillis) {
+        int sampleCost = 6;
+        String salt = BCrypt.gensalt(sampleCost);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("benchmark", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        long targetNanos = targetMillis * 1_000_000;
+        int cost = sampleCost;
+        while (cost < MAX_COST && fastest << (cost + 1 - sampleCost) <= targetNanos) {
+            cost++;
+        }
+        return Math.max(cost, MIN_COST);
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    /**
+     * @return the log2 work factor recorded in a BCrypt hash, or -1 if stored is not one
+     */
+    public static int costOf(String stored) {
+        if (!PasswordHashes.isBCrypt(stored) || stored.length() < 7 || stored.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(stored, 4, 6, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return true if stored is plain text or a hash at a lower cost than this hasher's,
+     *         so it should be replaced after the next successful login. A higher cost is
+     *         kept: nodes that benchmarked different costs would otherwise keep rehashing
+     *         each other's hashes, and one of them would lower the cost.
+     */
+    public boolean needsRehash(String stored) {
+        return costOf(stored) < cost;
+    }
+
+    public String hash(String password) throws DataAccessException {
+        String hashed = run(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+        hashes.increment();
+        return hashed;
+    }
+
+    /**
+     * @return true if password matches a BCrypt hash made by this or any other cost
+     */
+    public boolean verify(String password, String hash) throws DataAccessException {
+        boolean matches = run(() -> BCrypt.checkpw(password, hash));
+        verifications.increment();
+        return matches;
+    }
+
+    public Stats stats() {
+        long completed = hashes.sum() + verifications.sum();
+        return new Stats(hashes.sum(), verifications.sum(), rejected.sum(), pool.getQueue().size(),
+                completed == 0 ? 0 : totalNanos.sum() / completed / 1_000_000.0, maxNanos.get() / 1_000_000.0);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Latency covers queueing as well as hashing, since that is what the caller waits for
+    private <T> T run(Callable<T> work) throws DataAccessException {
+        long start = System.nanoTime();
+        try {
+            T result = pool.submit(work).get();
+            long elapsed = System.nanoTime() - start;
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+            return result;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new DataAccessException("Error: server busy");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            throw new DataAccessException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Benchmarked once per JVM, on first use, only when no cost is configured
+    private static final class BenchmarkedCost {
+        static final int VALUE = benchmarkCost(Long.getLong("chess.bcrypt.targetMillis", 100));
+    }
+
+    /**
+     * @param queued        requests currently waiting for a thread
+     * @param meanMillis    average time callers waited, queueing included
+     * @param maxMillis     longest time a caller waited
+     */
+    public record Stats(long hashes, long verifications, long rejected, int queued,
+                        double meanMillis, double maxMillis) {}
+}
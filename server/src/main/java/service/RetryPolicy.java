@@ -0,0 +1,44 @@
+package service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retry with jittered exponential backoff for optimistic game updates.
+ * A caller re-reads the game, re-validates, and tries DataAccess.updateGame again
+ * for as long as shouldRetry allows.
+ */
+public class RetryPolicy {
+    public static final RetryPolicy GAME_UPDATES = new RetryPolicy(5, 2);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    /**
+     * @param attempt the 1-based attempt that just lost a compare-and-set
+     * @return true if another attempt is allowed
+     */
+    public boolean shouldRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Sleeps for a random delay up to baseDelayMillis * 2^(attempt - 1) so that
+     * competing writers do not collide again on the next attempt.
+     */
+    public void backoff(int attempt) {
+        long bound = baseDelayMillis << Math.min(attempt - 1, 10);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
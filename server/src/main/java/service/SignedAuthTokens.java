@@ -0,0 +1,180 @@
+package service;
+
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.AuthData;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Self-validating tokens: key ID, username, issue time and a random nonce, signed with
+ * HMAC-SHA256. Checking one needs no store lookup, so authenticated requests and
+ * WebSocket commands skip the auths table entirely.
+ * <p>
+ * Tokens expire maxAge after issue. Logout adds the token to an in-memory revocation list
+ * that only has to remember it until then. The list is local to this process; with several
+ * server nodes, a token logged out on one stays usable on the others until it expires.
+ * <p>
+ * Clearing the database revokes every token on every node: tokens issued at or before the
+ * store's last clear time are rejected. That time is read from the store at most once per
+ * clearCheck, so another node's clear takes effect here within that interval.
+ * <p>
+ * Keys are looked up by the ID in the token, so a new signing key can be introduced while
+ * tokens signed with older ones remain valid.
+ */
+public class SignedAuthTokens implements AuthTokens {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    private final String signingKeyId;
+    private final long maxAgeMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private final DataAccess dataAccess;
+    private final long clearCheckMillis;
+    private volatile long lastCleared;
+    private volatile long lastClearedReadAt;
+
+    /**
+     * @param keys       key ID to secret; the first entry signs new tokens, all of them verify
+     * @param maxAge     how long a token stays valid after it is issued
+     * @param dataAccess the store whose clear time revokes every token issued before it
+     */
+    public SignedAuthTokens(Map<String, byte[]> keys, Duration maxAge, DataAccess dataAccess) {
+        this(keys, maxAge, dataAccess, Duration.ofSeconds(1));
+    }
+
+    SignedAuthTokens(Map<String, byte[]> keys, Duration maxAge, DataAccess dataAccess, Duration clearCheck) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one signing key is required");
+        }
+        keys.forEach((id, secret) -> this.keys.put(id, new SecretKeySpec(secret, "HmacSHA256")));
+        this.signingKeyId = keys.keySet().iterator().next();
+        this.maxAgeMillis = maxAge.toMillis();
+        this.dataAccess = dataAccess;
+        this.clearCheckMillis = clearCheck.toMillis();
+    }
+
+    /**
+     * Parses "id:base64secret,id:base64secret", signing with the first key. A null or
+     * blank spec yields a random key, which makes tokens valid only until this process
+     * restarts.
+     */
+    public static Map<String, byte[]> parseKeys(String spec) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys.put("local", secret);
+            return keys;
+        }
+        for (String entry : spec.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0 || entry.indexOf('.') >= 0) {
+                throw new IllegalArgumentException("Expected id:base64secret, got " + entry);
+            }
+            keys.put(entry.substring(0, colon).trim(), Base64.getDecoder().decode(entry.substring(colon + 1).trim()));
+        }
+        return keys;
+    }
+
+    // Never issued at or before the last clear, even in the millisecond it happened or on a lagging clock
+    @Override
+    public AuthData issue(String username) throws DataAccessException {
+        byte[] nonce = new byte[9];
+        random.nextBytes(nonce);
+        long issuedAt = Math.max(System.currentTimeMillis(), lastCleared() + 1);
+        String payload = signingKeyId + "." + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+                + "." + issuedAt + "." + ENCODER.encodeToString(nonce);
+        return new AuthData(payload + "." + sign(signingKeyId, payload), username);
+    }
+
+    @Override
+    public AuthData validate(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return null;
+        }
+        String[] parts = authToken.split("\\.");
+        if (parts.length != 5 || !keys.containsKey(parts[0])) {
+            return null;
+        }
+        String payload = authToken.substring(0, authToken.lastIndexOf('.'));
+        byte[] expected = sign(parts[0], payload).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, parts[4].getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        long issuedAt;
+        String username;
+        try {
+            issuedAt = Long.parseLong(parts[2]);
+            username = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (issuedAt > now + CLOCK_SKEW.toMillis() || now - issuedAt > maxAgeMillis
+                || revoked.containsKey(authToken) || issuedAt <= lastCleared()) {
+            return null;
+        }
+        return new AuthData(authToken, username);
+    }
+
+    @Override
+    public boolean revoke(String authToken) throws DataAccessException {
+        if (validate(authToken) == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long issuedAt = Long.parseLong(authToken.split("\\.")[2]);
+        revoked.put(authToken, issuedAt + maxAgeMillis);
+        // Entries are only needed until the token would have expired anyway
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        return true;
+    }
+
+    // Called after the store was cleared, so rereading its clear time revokes every token here at once
+    @Override
+    public void revokeAll() throws DataAccessException {
+        refreshLastCleared(System.currentTimeMillis());
+        revoked.clear();
+    }
+
+    int revokedCount() {
+        return revoked.size();
+    }
+
+    private long lastCleared() throws DataAccessException {
+        long now = System.currentTimeMillis();
+        if (now - lastClearedReadAt >= clearCheckMillis) {
+            refreshLastCleared(now);
+        }
+        return lastCleared;
+    }
+
+    private void refreshLastCleared(long now) throws DataAccessException {
+        lastCleared = dataAccess.lastCleared();
+        lastClearedReadAt = now;
+    }
+
+    private String sign(String keyId, String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(keys.get(keyId));
+            return ENCODER.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package service;
+
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.AuthData;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Random UUID tokens kept in the auths table. Every validation is a store lookup.
+ * <p>
+ * With a TTL, a token expires once it has gone unused for that long. Each use pushes the
+ * expiry out again, but the new last-used time is only written when the stored one is
+ * more than a tenth of the TTL (at most a minute) old, so busy tokens are not rewritten
+ * on every request. Expired rows are removed by AuthTokenReaper.
+ */
+public class StoredAuthTokens implements AuthTokens {
+    private static final long MAX_TOUCH_INTERVAL_MILLIS = 60_000;
+
+    private final DataAccess dataAccess;
+    private final long ttlMillis;
+    private final long touchIntervalMillis;
+
+    public StoredAuthTokens(DataAccess dataAccess) {
+        this(dataAccess, Duration.ZERO);
+    }
+
+    /**
+     * @param ttl how long a token may go unused before it expires; zero never expires
+     */
+    public StoredAuthTokens(DataAccess dataAccess, Duration ttl) {
+        this.dataAccess = dataAccess;
+        this.ttlMillis = ttl.toMillis();
+        this.touchIntervalMillis = Math.min(ttlMillis / 10, MAX_TOUCH_INTERVAL_MILLIS);
+    }
+
+    @Override
+    public AuthData issue(String username) throws DataAccessException {
+        AuthData auth = new AuthData(UUID.randomUUID().toString(), username);
+        dataAccess.createAuth(auth);
+        return auth;
+    }
+
+    @Override
+    public AuthData validate(String authToken) throws DataAccessException {
+        AuthData auth = dataAccess.getAuth(authToken);
+        if (auth == null || ttlMillis <= 0) {
+            return auth;
+        }
+        long now = System.currentTimeMillis();
+        long idle = now - auth.getLastUsed();
+        if (idle > ttlMillis) {
+            return null;
+        }
+        if (idle > touchIntervalMillis) {
+            dataAccess.touchAuth(authToken, now);
+        }
+        return auth;
+    }
+
+    @Override
+    public boolean revoke(String authToken) throws DataAccessException {
+        if (validate(authToken) == null) {
+            return false;
+        }
+        dataAccess.deleteAuth(authToken);
+        return true;
+    }
+
+    // Clearing the store already removed them
+    @Override
+    public void revokeAll() {
+    }
+}
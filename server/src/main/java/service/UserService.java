@@ -2,15 +2,27 @@ package service;
 
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.PasswordHashes;
 import model.UserData;
 import model.AuthData;
-import java.util.UUID;
 
 public class UserService {
     private final DataAccess dataAccess;
+    private final PasswordHasher passwordHasher;
+    private final AuthTokens authTokens;
 
     public UserService(DataAccess dataAccess) {
+        this(dataAccess, PasswordHasher.fromSystemProperties());
+    }
+
+    public UserService(DataAccess dataAccess, PasswordHasher passwordHasher) {
+        this(dataAccess, passwordHasher, new StoredAuthTokens(dataAccess));
+    }
+
+    public UserService(DataAccess dataAccess, PasswordHasher passwordHasher, AuthTokens authTokens) {
         this.dataAccess = dataAccess;
+        this.passwordHasher = passwordHasher;
+        this.authTokens = authTokens;
     }
 
     public RegisterResult register(RegisterRequest registerRequest) throws DataAccessException {
@@ -23,14 +35,13 @@ public class UserService {
             throw new DataAccessException("Error: already taken");
         }
 
-        UserData newUser = new UserData(registerRequest.username(), registerRequest.password(), registerRequest.email());
+        // Hashed here, on the hashing pool, so the store keeps it as is
+        UserData newUser = new UserData(registerRequest.username(),
+                passwordHasher.hash(registerRequest.password()), registerRequest.email());
         dataAccess.createUser(newUser);
 
-        String authToken = UUID.randomUUID().toString();
-        AuthData auth = new AuthData(authToken, registerRequest.username());
-        dataAccess.createAuth(auth);
-
-        return new RegisterResult(registerRequest.username(), authToken);
+        AuthData auth = authTokens.issue(registerRequest.username());
+        return new RegisterResult(registerRequest.username(), auth.getAuthToken());
     }
 
     public LoginResult login(LoginRequest loginRequest) throws DataAccessException {
@@ -43,11 +54,10 @@ public class UserService {
             throw new DataAccessException("Error: unauthorized");
         }
 
-        // Handle both BCrypt hashed passwords (MySQL) and plain text (Memory)
+        // Handle both BCrypt hashed passwords and plain text
         boolean passwordMatches;
-        if (user.getPassword().startsWith("$2a$") || user.getPassword().startsWith("$2b$")) {
-            // BCrypt hashed password
-            passwordMatches = org.mindrot.jbcrypt.BCrypt.checkpw(loginRequest.password(), user.getPassword());
+        if (PasswordHashes.isBCrypt(user.getPassword())) {
+            passwordMatches = passwordHasher.verify(loginRequest.password(), user.getPassword());
         } else {
             // Plain text password (for backward compatibility)
             passwordMatches = user.getPassword().equals(loginRequest.password());
@@ -56,20 +66,32 @@ public class UserService {
         if (!passwordMatches) {
             throw new DataAccessException("Error: unauthorized");
         }
+        upgradeHash(user, loginRequest.password());
 
-        String authToken = UUID.randomUUID().toString();
-        AuthData auth = new AuthData(authToken, loginRequest.username());
-        dataAccess.createAuth(auth);
+        AuthData auth = authTokens.issue(loginRequest.username());
+        return new LoginResult(loginRequest.username(), auth.getAuthToken());
+    }
 
-        return new LoginResult(loginRequest.username(), authToken);
+    /*
+     * The stored hash records its own algorithm and cost. When it is plain text or cheaper
+     * than what the hasher uses now, replace it while the plain password is at hand. Failing to do so
+     * is not a reason to fail the login; the next one tries again.
+     */
+    private void upgradeHash(UserData user, String password) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            dataAccess.updatePassword(user.getUsername(), passwordHasher.hash(password));
+        } catch (DataAccessException e) {
+            System.err.println("Could not rehash password for " + user.getUsername() + ": " + e.getMessage());
+        }
     }
 
     public void logout(String authToken) throws DataAccessException {
-        AuthData auth = dataAccess.getAuth(authToken);
-        if (auth == null) {
+        if (!authTokens.revoke(authToken)) {
             throw new DataAccessException("Error: unauthorized");
         }
-        dataAccess.deleteAuth(authToken);
     }
 
     public record RegisterRequest(String username, String password, String email) {}
@@ -3,6 +3,7 @@ package dataaccess;
 import model.AuthData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AuthDAOTests {
@@ -14,6 +15,13 @@ public class AuthDAOTests {
         dataAccess.clear(); // Clear data before each test
     }
 
+    @Test
+    public void clearRecordsItsTime() throws DataAccessException {
+        long before = System.currentTimeMillis();
+        dataAccess.clear();
+        assertTrue(dataAccess.lastCleared() >= before);
+    }
+
     @Test
     public void createAuthPositive() throws DataAccessException {
         AuthData auth = new AuthData("token123", "testuser");
@@ -72,6 +80,49 @@ public class AuthDAOTests {
         });
     }
 
+    @Test
+    public void deleteAuthsBatchPositive() throws DataAccessException {
+        dataAccess.createAuths(List.of(
+                new AuthData("token1", "user1"),
+                new AuthData("token2", "user1"),
+                new AuthData("token3", "user2")));
+
+        int deleted = dataAccess.deleteAuths(List.of("token1", "token3", "nonexistent"));
+
+        assertEquals(2, deleted);
+        assertNull(dataAccess.getAuth("token1"));
+        assertNotNull(dataAccess.getAuth("token2"));
+        assertNull(dataAccess.getAuth("token3"));
+    }
+
+    @Test
+    public void touchAuthPositive() throws DataAccessException {
+        dataAccess.createAuth(new AuthData("token1", "user1", 1_000));
+
+        assertTrue(dataAccess.touchAuth("token1", 5_000));
+        assertEquals(5_000, dataAccess.getAuth("token1").getLastUsed());
+    }
+
+    @Test
+    public void touchAuthNegative() throws DataAccessException {
+        assertFalse(dataAccess.touchAuth("nonexistent", 5_000));
+    }
+
+    @Test
+    public void deleteExpiredAuthsPositive() throws DataAccessException {
+        dataAccess.createAuths(List.of(
+                new AuthData("old1", "user1", 1_000),
+                new AuthData("old2", "user1", 2_000),
+                new AuthData("old3", "user2", 3_000),
+                new AuthData("fresh", "user2", 9_000)));
+
+        assertEquals(2, dataAccess.deleteExpiredAuths(5_000, 2));
+        assertEquals(1, dataAccess.deleteExpiredAuths(5_000, 2));
+        assertEquals(0, dataAccess.deleteExpiredAuths(5_000, 2));
+        assertEquals(1, dataAccess.countAuths());
+        assertNotNull(dataAccess.getAuth("fresh"));
+    }
+
     @Test
     public void clearPositive() throws DataAccessException {
         AuthData auth = new AuthData("token123", "testuser");
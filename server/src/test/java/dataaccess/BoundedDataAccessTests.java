@@ -0,0 +1,104 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedDataAccessTests {
+
+    @Test
+    public void limitsConcurrentCalls() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        DataAccess slow = new MemoryDataAccess() {
+            @Override
+            public UserData getUser(String username) throws DataAccessException {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inside.decrementAndGet();
+                }
+                return super.getUser(username);
+            }
+        };
+        BoundedDataAccess dataAccess = new BoundedDataAccess(slow, 3);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                executor.submit(() -> dataAccess.getUser("player"));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertTrue(maxInside.get() <= 3);
+        assertEquals(3, dataAccess.availablePermits());
+    }
+
+    @Test
+    public void releasesPermitOnFailure() {
+        BoundedDataAccess dataAccess = new BoundedDataAccess(new MemoryDataAccess(), 1);
+
+        assertThrows(DataAccessException.class, () -> dataAccess.createUser(null));
+        assertEquals(1, dataAccess.availablePermits());
+    }
+
+    @Test
+    public void blockedListingReaderDoesNotStarveOtherCalls() throws Exception {
+        MemoryDataAccess store = new MemoryDataAccess();
+        int gameID = store.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        BoundedDataAccess dataAccess = new BoundedDataAccess(store, 1);
+        CountDownLatch visiting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> listing = executor.submit(() -> {
+                // Stands in for writing to a client that has stopped reading
+                dataAccess.forEachGame(false, game -> {
+                    visiting.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            });
+            assertTrue(visiting.await(5, TimeUnit.SECONDS));
+
+            assertNotNull(executor.submit(() -> dataAccess.getGame(gameID)).get(5, TimeUnit.SECONDS));
+            release.countDown();
+            listing.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, dataAccess.availablePermits());
+    }
+
+    @Test
+    public void listingPagesThroughEveryGameInOrder() throws Exception {
+        MemoryDataAccess store = new MemoryDataAccess();
+        List<GameData> games = new ArrayList<>();
+        for (int i = 0; i < 450; i++) {
+            games.add(new GameData(0, null, null, "game " + i, new ChessGame()));
+        }
+        List<Integer> created = store.createGames(games);
+        BoundedDataAccess dataAccess = new BoundedDataAccess(store, 1);
+
+        List<Integer> visited = new ArrayList<>();
+        dataAccess.forEachGame(false, game -> visited.add(game.getGameID()));
+
+        assertEquals(created, visited);
+    }
+}
@@ -0,0 +1,126 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mindrot.jbcrypt.BCrypt;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableMemoryDataAccessTests {
+    private static final String HASH = BCrypt.hashpw("password", BCrypt.gensalt(4));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void recoversFromLog() throws Exception {
+        int gameID;
+        try (var dataAccess = new DurableMemoryDataAccess(directory, 10_000, true)) {
+            dataAccess.createUser(new UserData("user", HASH, "user@example.com"));
+            dataAccess.createAuth(new AuthData("token", "user"));
+            dataAccess.createAuth(new AuthData("gone", "user"));
+            dataAccess.deleteAuth("gone");
+
+            gameID = dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame()));
+            GameData game = dataAccess.getGame(gameID);
+            game.getGame().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+            assertTrue(dataAccess.updateGame(new GameData(gameID, "user", null, "game", game.getGame(), game.getVersion())));
+        }
+
+        try (var recovered = new DurableMemoryDataAccess(directory, 10_000, true)) {
+            assertNotNull(recovered.getUser("user"));
+            assertEquals(HASH, recovered.getUser("user").getPassword());
+            assertNotNull(recovered.getAuth("token"));
+            assertNull(recovered.getAuth("gone"));
+
+            GameData game = recovered.getGame(gameID);
+            assertEquals("user", game.getWhiteUsername());
+            assertEquals(1, game.getVersion());
+            assertEquals(ChessGame.TeamColor.BLACK, game.getGame().getTeamTurn());
+            assertEquals(gameID + 1, recovered.createGame(new GameData(0, null, null, "next", new ChessGame())));
+        }
+    }
+
+    @Test
+    public void recoversFromSnapshotAndCompactsLogs() throws Exception {
+        try (var dataAccess = new DurableMemoryDataAccess(directory, 5, false)) {
+            dataAccess.createGames(List.of(
+                    new GameData(0, null, null, "1", new ChessGame()),
+                    new GameData(0, null, null, "2", new ChessGame()),
+                    new GameData(0, null, null, "3", new ChessGame()),
+                    new GameData(0, null, null, "4", new ChessGame()),
+                    new GameData(0, null, null, "5", new ChessGame()),
+                    new GameData(0, null, null, "6", new ChessGame())));
+        }
+
+        try (var recovered = new DurableMemoryDataAccess(directory, 5, false)) {
+            assertEquals(6, recovered.listGames().size());
+        }
+        try (var files = Files.list(directory)) {
+            assertTrue(files.anyMatch(file -> file.getFileName().toString().startsWith("snapshot-")));
+        }
+    }
+
+    @Test
+    public void ignoresTornTail() throws Exception {
+        try (var dataAccess = new DurableMemoryDataAccess(directory, 10_000, true)) {
+            dataAccess.createAuth(new AuthData("token", "user"));
+        }
+        // Simulate a crash part way through writing the next record
+        Files.write(directory.resolve("wal-1.log"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (var recovered = new DurableMemoryDataAccess(directory, 10_000, true)) {
+            assertNotNull(recovered.getAuth("token"));
+            recovered.createAuth(new AuthData("after", "user"));
+        }
+        try (var recovered = new DurableMemoryDataAccess(directory, 10_000, true)) {
+            assertNotNull(recovered.getAuth("after"));
+        }
+    }
+
+    @Test
+    public void failedAppendLeavesMemoryUnchanged() throws Exception {
+        var dataAccess = new DurableMemoryDataAccess(directory, 10_000, true);
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        dataAccess.createAuth(new AuthData("token", "user"));
+        // Closing the log makes every later append fail
+        dataAccess.close();
+
+        assertThrows(DataAccessException.class,
+                () -> dataAccess.createUser(new UserData("user", HASH, "user@example.com")));
+        assertThrows(DataAccessException.class,
+                () -> dataAccess.updateGame(new GameData(gameID, "user", null, "game", new ChessGame(), 0)));
+        assertThrows(DataAccessException.class, () -> dataAccess.deleteAuth("token"));
+        assertThrows(DataAccessException.class,
+                () -> dataAccess.createGame(new GameData(0, null, null, "lost", new ChessGame())));
+
+        assertNull(dataAccess.getUser("user"));
+        assertEquals(0, dataAccess.getGame(gameID).getVersion());
+        assertNull(dataAccess.getGame(gameID).getWhiteUsername());
+        assertNotNull(dataAccess.getAuth("token"));
+        assertEquals(1, dataAccess.listGames().size());
+    }
+
+    @Test
+    public void rejectsPasswordsThatAreNotHashed() throws Exception {
+        try (var dataAccess = new DurableMemoryDataAccess(directory, 10_000, false)) {
+            assertThrows(DataAccessException.class,
+                    () -> dataAccess.createUser(new UserData("user", "$2a$10$notreallyahash", "user@example.com")));
+            assertThrows(DataAccessException.class, () -> dataAccess.createUsers(List.of(
+                    new UserData("hashed", HASH, "hashed@example.com"),
+                    new UserData("plain", "password", "plain@example.com"))));
+
+            assertNull(dataAccess.getUser("user"));
+            assertNull(dataAccess.getUser("hashed"));
+        }
+    }
+}
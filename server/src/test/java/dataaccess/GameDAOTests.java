@@ -1,10 +1,13 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 import model.GameData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.Collection;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class GameDAOTests {
@@ -56,6 +59,18 @@ public class GameDAOTests {
         assertEquals("black", retrieved.getBlackUsername());
     }
 
+    @Test
+    public void gameStateRoundTripsAfterMove() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "Moved Game", game));
+
+        GameData retrieved = dataAccess.getGame(gameID);
+        assertEquals(ChessGame.TeamColor.BLACK, retrieved.getGame().getTeamTurn());
+        assertEquals(game.getBoard(), retrieved.getGame().getBoard());
+        assertTrue(DatabaseManager.schemaVersion() >= 2);
+    }
+
     @Test
     public void getGameNegative() throws DataAccessException {
         GameData retrieved = dataAccess.getGame(999);
@@ -77,6 +92,19 @@ public class GameDAOTests {
         assertEquals("newBlack", retrieved.getBlackUsername());
     }
 
+    @Test
+    public void updateGameStaleVersion() throws DataAccessException {
+        ChessGame game = new ChessGame();
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "Test Game", game));
+
+        assertTrue(dataAccess.updateGame(new GameData(gameID, "first", null, "Test Game", game, 0)));
+        assertFalse(dataAccess.updateGame(new GameData(gameID, "second", null, "Test Game", game, 0)));
+
+        GameData retrieved = dataAccess.getGame(gameID);
+        assertEquals("first", retrieved.getWhiteUsername());
+        assertEquals(1, retrieved.getVersion());
+    }
+
     @Test
     public void updateGameNegative() throws DataAccessException {
         // Test updating non-existent game
@@ -106,6 +134,35 @@ public class GameDAOTests {
         assertEquals(0, games.size());
     }
 
+    @Test
+    public void gameOutcomePersists() throws DataAccessException {
+        int finishedID = dataAccess.createGame(new GameData(0, "white", "black", "Finished", new ChessGame()));
+        int activeID = dataAccess.createGame(new GameData(0, "white", "black", "Active", new ChessGame()));
+
+        GameData finished = dataAccess.getGame(finishedID);
+        assertTrue(dataAccess.updateGame(finished.withOutcome(GameData.Result.BLACK_WON, GameData.Termination.RESIGNATION)));
+
+        GameData retrieved = dataAccess.getGame(finishedID);
+        assertTrue(retrieved.isOver());
+        assertEquals(GameData.Result.BLACK_WON, retrieved.getResult());
+        assertEquals(GameData.Termination.RESIGNATION, retrieved.getTermination());
+
+        Collection<GameData> active = dataAccess.listActiveGames();
+        assertEquals(1, active.size());
+        assertEquals(activeID, active.iterator().next().getGameID());
+    }
+
+    @Test
+    public void createGamesBatchPositive() throws DataAccessException {
+        List<Integer> gameIDs = dataAccess.createGames(List.of(
+                new GameData(0, null, null, "Round 1", new ChessGame()),
+                new GameData(0, "white", "black", "Round 2", new ChessGame())));
+
+        assertEquals(2, gameIDs.size());
+        assertEquals("Round 1", dataAccess.getGame(gameIDs.get(0)).getGameName());
+        assertEquals("Round 2", dataAccess.getGame(gameIDs.get(1)).getGameName());
+    }
+
     @Test
     public void clearPositive() throws DataAccessException {
         ChessGame game = new ChessGame();
@@ -117,4 +174,31 @@ public class GameDAOTests {
         Collection<GameData> games = dataAccess.listGames();
         assertEquals(0, games.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void gamesVersionAdvancesOnWrites() throws DataAccessException {
+        long initial = dataAccess.gamesVersion();
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "Test Game", new ChessGame()));
+        long afterCreate = dataAccess.gamesVersion();
+        assertTrue(afterCreate > initial);
+        assertEquals(afterCreate, dataAccess.gamesVersion());
+
+        GameData game = dataAccess.getGame(gameID);
+        dataAccess.updateGame(new GameData(gameID, "white", null, "Test Game", game.getGame(), game.getVersion()));
+        assertTrue(dataAccess.gamesVersion() > afterCreate);
+    }
+
+    @Test
+    public void listGamesAfterPagesInIdOrder() throws DataAccessException {
+        List<Integer> gameIDs = dataAccess.createGames(List.of(
+                new GameData(0, null, null, "1", new ChessGame()),
+                new GameData(0, null, null, "2", new ChessGame()),
+                new GameData(0, null, null, "3", new ChessGame())));
+
+        List<GameData> first = dataAccess.listGamesAfter(0, 2, false);
+        List<GameData> second = dataAccess.listGamesAfter(first.get(1).getGameID(), 2, false);
+
+        assertEquals(List.of(gameIDs.get(0), gameIDs.get(1)), first.stream().map(GameData::getGameID).toList());
+        assertEquals(List.of(gameIDs.get(2)), second.stream().map(GameData::getGameID).toList());
+    }
+}
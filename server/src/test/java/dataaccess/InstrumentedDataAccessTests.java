@@ -0,0 +1,78 @@
+package dataaccess;
+
+import chess.ChessGame;
+import metrics.MetricsRegistry;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedDataAccessTests {
+
+    @Test
+    public void recordsCallsFailuresAndPayloads() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        InstrumentedDataAccess dataAccess = new InstrumentedDataAccess(new MemoryDataAccess(), metrics,
+                Duration.ofMinutes(1), 1);
+
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        dataAccess.getGame(gameID);
+        dataAccess.getGame(gameID);
+        assertThrows(DataAccessException.class, () -> dataAccess.createUser(null));
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("chess_db_calls_total{method=\"getGame\",outcome=\"ok\"} 2\n"));
+        assertTrue(text.contains("chess_db_calls_total{method=\"createUser\",outcome=\"error\"} 1\n"));
+        assertTrue(text.contains("chess_db_call_seconds_count{method=\"getGame\"} 2\n"));
+        assertTrue(text.contains("chess_db_game_state_bytes_count{method=\"getGame\"} 2\n"));
+        assertTrue(metrics.histogram("chess_db_game_state_bytes", "", 1, "method", "createGame").max() > 0);
+        assertFalse(text.contains("chess_db_slow_calls_total"));
+    }
+
+    @Test
+    public void countsCallsOverTheSlowThreshold() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        DataAccess slow = new MemoryDataAccess() {
+            @Override
+            public UserData getUser(String username) throws DataAccessException {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getUser(username);
+            }
+        };
+        InstrumentedDataAccess dataAccess = new InstrumentedDataAccess(slow, metrics, Duration.ofMillis(1), 0);
+
+        dataAccess.getUser("player");
+        dataAccess.countAuths();
+
+        assertEquals(1, metrics.counter("chess_db_slow_calls_total", "", "method", "getUser").sum());
+        assertFalse(metrics.scrape().contains("chess_db_game_state_bytes"));
+    }
+
+    @Test
+    public void slowListingVisitorIsNotCountedAsASlowRead() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        InstrumentedDataAccess dataAccess = new InstrumentedDataAccess(new MemoryDataAccess(), metrics,
+                Duration.ofMillis(50), 0);
+        dataAccess.createGame(new GameData(0, null, null, "first", new ChessGame()));
+        dataAccess.createGame(new GameData(0, null, null, "second", new ChessGame()));
+
+        dataAccess.forEachGame(false, game -> {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("chess_db_calls_total{method=\"forEachGame\",outcome=\"ok\"} 1\n"));
+        assertFalse(text.contains("chess_db_slow_calls_total"));
+        assertTrue(metrics.histogram("chess_db_call_seconds", "", 1e-6, "method", "forEachGame").max() < 50_000);
+        assertTrue(metrics.histogram("chess_db_visitor_seconds", "", 1e-6, "method", "forEachGame").max() >= 120_000);
+    }
+}
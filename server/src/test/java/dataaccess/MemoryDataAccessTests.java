@@ -0,0 +1,96 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryDataAccessTests {
+    private MemoryDataAccess dataAccess;
+
+    @BeforeEach
+    public void setUp() {
+        dataAccess = new MemoryDataAccess();
+    }
+
+    @Test
+    public void concurrentCreateGameAssignsUniqueIDs() throws Exception {
+        Set<Integer> gameIDs = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 250; j++) {
+                    try {
+                        gameIDs.add(dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame())));
+                    } catch (DataAccessException e) {
+                        fail(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(2000, gameIDs.size());
+        assertEquals(2000, dataAccess.listGames().size());
+    }
+
+    @Test
+    public void getGameReturnsIndependentCopy() throws Exception {
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame()));
+
+        GameData first = dataAccess.getGame(gameID);
+        first.getGame().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+
+        // An uncommitted move must not leak into the store
+        assertEquals(ChessGame.TeamColor.WHITE, dataAccess.getGame(gameID).getGame().getTeamTurn());
+    }
+
+    @Test
+    public void listGamesIsSnapshot() throws Exception {
+        dataAccess.createGame(new GameData(0, null, null, "game 1", new ChessGame()));
+        Collection<GameData> listed = dataAccess.listGames();
+
+        dataAccess.createGame(new GameData(0, null, null, "game 2", new ChessGame()));
+
+        assertEquals(1, listed.size());
+    }
+
+    @Test
+    public void listActiveGamesSkipsFinishedGames() throws Exception {
+        int finishedID = dataAccess.createGame(new GameData(0, "white", "black", "finished", new ChessGame()));
+        dataAccess.createGame(new GameData(0, "white", "black", "active", new ChessGame()));
+
+        GameData finished = dataAccess.getGame(finishedID);
+        assertTrue(dataAccess.updateGame(finished.withOutcome(GameData.Result.DRAW, GameData.Termination.STALEMATE)));
+
+        assertEquals(GameData.Termination.STALEMATE, dataAccess.getGame(finishedID).getTermination());
+        assertEquals(1, dataAccess.listActiveGames().size());
+        assertEquals(2, dataAccess.listGames().size());
+    }
+
+    @Test
+    public void createAuthsRejectsExistingTokenWithoutPartialInsert() throws Exception {
+        dataAccess.createAuth(new AuthData("taken", "alice"));
+
+        DataAccessException ex = assertThrows(DataAccessException.class, () -> dataAccess.createAuths(
+                List.of(new AuthData("fresh", "bob"), new AuthData("taken", "bob"))));
+        assertEquals("Error: auth token already exists", ex.getMessage());
+        assertEquals("alice", dataAccess.getAuth("taken").getUsername());
+        assertNull(dataAccess.getAuth("fresh"));
+
+        assertThrows(DataAccessException.class, () -> dataAccess.createAuths(
+                List.of(new AuthData("twice", "bob"), new AuthData("twice", "carol"))));
+        assertNull(dataAccess.getAuth("twice"));
+    }
+}
@@ -3,9 +3,12 @@ package dataaccess;
 import model.UserData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UserDAOTests {
+    private static final String HASH = BCrypt.hashpw("password123", BCrypt.gensalt(4));
     private MySqlDataAccess dataAccess;
 
     @BeforeEach
@@ -16,20 +19,19 @@ public class UserDAOTests {
 
     @Test
     public void createUserPositive() throws DataAccessException {
-        UserData user = new UserData("testuser", "password123", "test@example.com");
+        UserData user = new UserData("testuser", HASH, "test@example.com");
         dataAccess.createUser(user);
 
         UserData retrieved = dataAccess.getUser("testuser");
         assertNotNull(retrieved);
         assertEquals("testuser", retrieved.getUsername());
         assertEquals("test@example.com", retrieved.getEmail());
-        // Password should be hashed, so it shouldn't match the original
-        assertNotEquals("password123", retrieved.getPassword());
+        assertEquals(HASH, retrieved.getPassword());
     }
 
     @Test
     public void createUserNegative() throws DataAccessException {
-        UserData user = new UserData("testuser", "password123", "test@example.com");
+        UserData user = new UserData("testuser", HASH, "test@example.com");
         dataAccess.createUser(user);
 
         // Try to create the same user again - should throw exception
@@ -38,9 +40,22 @@ public class UserDAOTests {
         });
     }
 
+    @Test
+    public void createUserRejectsPlainPassword() throws DataAccessException {
+        // The store never hashes; callers hash with PasswordHasher first
+        assertThrows(DataAccessException.class, () -> {
+            dataAccess.createUser(new UserData("testuser", "password123", "test@example.com"));
+        });
+        assertThrows(DataAccessException.class, () -> {
+            dataAccess.createUsers(List.of(new UserData("user1", "password1", "one@example.com")));
+        });
+        assertNull(dataAccess.getUser("testuser"));
+        assertNull(dataAccess.getUser("user1"));
+    }
+
     @Test
     public void getUserPositive() throws DataAccessException {
-        UserData user = new UserData("testuser", "password123", "test@example.com");
+        UserData user = new UserData("testuser", HASH, "test@example.com");
         dataAccess.createUser(user);
 
         UserData retrieved = dataAccess.getUser("testuser");
@@ -54,9 +69,46 @@ public class UserDAOTests {
         assertNull(retrieved);
     }
 
+    @Test
+    public void createUsersBatchPositive() throws DataAccessException {
+        dataAccess.createUsers(List.of(
+                new UserData("user1", HASH, "one@example.com"),
+                new UserData("user2", HASH, "two@example.com")));
+
+        assertNotNull(dataAccess.getUser("user1"));
+        assertNotNull(dataAccess.getUser("user2"));
+    }
+
+    @Test
+    public void createUsersBatchNegative() throws DataAccessException {
+        dataAccess.createUser(new UserData("user1", HASH, "one@example.com"));
+
+        // The whole batch is rolled back when any row collides
+        assertThrows(DataAccessException.class, () -> {
+            dataAccess.createUsers(List.of(
+                    new UserData("user2", HASH, "two@example.com"),
+                    new UserData("user1", HASH, "three@example.com")));
+        });
+        assertNull(dataAccess.getUser("user2"));
+    }
+
+    @Test
+    public void updatePasswordPositive() throws DataAccessException {
+        dataAccess.createUser(new UserData("testuser", HASH, "test@example.com"));
+
+        assertTrue(dataAccess.updatePassword("testuser", "$2a$04$replacementhashreplacementhashreplacementhash12"));
+        assertEquals("$2a$04$replacementhashreplacementhashreplacementhash12",
+                dataAccess.getUser("testuser").getPassword());
+    }
+
+    @Test
+    public void updatePasswordNegative() throws DataAccessException {
+        assertFalse(dataAccess.updatePassword("nonexistent", "$2a$04$whatever"));
+    }
+
     @Test
     public void clearPositive() throws DataAccessException {
-        UserData user = new UserData("testuser", "password123", "test@example.com");
+        UserData user = new UserData("testuser", HASH, "test@example.com");
         dataAccess.createUser(user);
 
         dataAccess.clear();
@@ -0,0 +1,38 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTests {
+
+    @Test
+    public void bucketsCoverEveryValueWithinOneSixtyFourth() {
+        long[] values = {0, 1, 127, 128, 129, 255, 256, 1_000, 65_535, 1_000_000, 123_456_789, (1L << 36) - 1};
+        for (long value : values) {
+            int index = Histogram.indexOf(value);
+            long highest = Histogram.highestValueIn(index);
+            assertTrue(highest >= value, "bucket for " + value + " ends at " + highest);
+            assertTrue(highest - value <= value / 64, "bucket for " + value + " is too wide");
+            if (index > 0) {
+                assertTrue(Histogram.highestValueIn(index - 1) < value, "previous bucket also holds " + value);
+            }
+        }
+    }
+
+    @Test
+    public void quantilesComeFromTheRecordedDistribution() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(50_000);
+
+        assertEquals(1001, histogram.count());
+        assertEquals(500_500 + 50_000, histogram.sum());
+        assertEquals(50_000, histogram.max());
+        assertEquals(501, histogram.valueAt(0.5), 501 / 64);
+        assertEquals(991, histogram.valueAt(0.99), 991 / 64);
+        assertEquals(50_000, histogram.valueAt(1.0));
+        assertEquals(0, new Histogram().valueAt(0.5));
+    }
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTests {
+
+    @Test
+    public void scrapesInPrometheusTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests", "route", "GET /game", "status", "200").add(3);
+        registry.counter("requests_total", "Requests", "route", "GET /game", "status", "200").increment();
+        registry.gauge("queued", "Waiting", () -> 2);
+        Histogram latency = registry.histogram("latency_seconds", "Latency", 1e-6, "route", "GET /game");
+        latency.record(1_000);
+        latency.record(3_000);
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE requests_total counter\n"));
+        assertTrue(text.contains("requests_total{route=\"GET /game\",status=\"200\"} 4\n"));
+        assertTrue(text.contains("# TYPE queued gauge\nqueued 2\n"));
+        assertTrue(text.contains("# TYPE latency_seconds summary\n"));
+        assertTrue(text.contains("latency_seconds{route=\"GET /game\",quantile=\"0.5\"} 0.001"));
+        assertTrue(text.contains("latency_seconds_sum{route=\"GET /game\"} 0.004"));
+        assertTrue(text.contains("latency_seconds_count{route=\"GET /game\"} 2\n"));
+    }
+
+    @Test
+    public void rejectsReusingANameWithAnotherType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("things", "Things");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("things", "Things", () -> 1));
+    }
+}
@@ -0,0 +1,91 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMailboxesTests {
+
+    @Test
+    public void commandsForOneGameRunInOrder() throws Exception {
+        GameMailboxes mailboxes = new GameMailboxes();
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int command = i;
+            mailboxes.submit(1, () -> {
+                ran.add(command);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    public void commandsForDifferentGamesRunConcurrently() throws Exception {
+        GameMailboxes mailboxes = new GameMailboxes();
+        CountDownLatch otherGameRan = new CountDownLatch(1);
+        AtomicBoolean sawOtherGame = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+
+        // Game 1 can only finish in time if game 2 runs while it is still blocked
+        mailboxes.submit(1, () -> {
+            try {
+                sawOtherGame.set(otherGameRan.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        mailboxes.submit(2, otherGameRan::countDown);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(sawOtherGame.get());
+    }
+
+    @Test
+    public void pendingReturnsToZeroAfterTasksDrain() throws Exception {
+        GameMailboxes mailboxes = new GameMailboxes();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+
+        mailboxes.submit(1, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            mailboxes.submit(1, done::countDown);
+        }
+        assertEquals(3, mailboxes.pending());
+
+        mailboxes.submit(null, () -> {
+            throw new IllegalStateException("a failing task still counts as started");
+        });
+        mailboxes.submit(2, done::countDown);
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailboxes.pending() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, mailboxes.pending());
+    }
+}
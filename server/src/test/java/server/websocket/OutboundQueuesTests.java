@@ -0,0 +1,127 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Test;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboundQueuesTests {
+
+    @Test
+    public void intermediateBoardStatesAreDropped() {
+        OutboundQueues queues = new OutboundQueues(8, TimeUnit.SECONDS.toNanos(10));
+        SlowClient client = new SlowClient();
+        queues.open(client.session);
+
+        queues.send(client.session, SessionOutbox.Frame.text("board-1", true));
+        queues.send(client.session, SessionOutbox.Frame.text("note", false));
+        queues.send(client.session, SessionOutbox.Frame.text("board-2", true));
+        queues.send(client.session, SessionOutbox.Frame.text("board-3", true));
+        client.completeAll();
+
+        assertEquals(List.of("board-1", "note", "board-3"), client.sent);
+        assertEquals(1, queues.droppedBoards());
+        assertEquals(0, queues.totalDepth());
+    }
+
+    @Test
+    public void laggingClientIsDisconnected() {
+        OutboundQueues queues = new OutboundQueues(2, TimeUnit.SECONDS.toNanos(10));
+        SlowClient client = new SlowClient();
+        queues.open(client.session);
+
+        for (int i = 0; i < 4; i++) {
+            queues.send(client.session, SessionOutbox.Frame.text("note-" + i, false));
+        }
+
+        assertEquals(StatusCode.TRY_AGAIN_LATER, client.closeStatus);
+        assertEquals(1, queues.disconnectedSessions());
+        assertEquals(2, queues.peakDepth());
+    }
+
+    @Test
+    public void stalledWriteTimesOutWithoutFurtherMessages() throws Exception {
+        OutboundQueues queues = new OutboundQueues(8, TimeUnit.MILLISECONDS.toNanos(50));
+        SlowClient client = new SlowClient();
+        queues.open(client.session);
+
+        queues.send(client.session, SessionOutbox.Frame.text("note", false));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.closeStatus == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(StatusCode.TRY_AGAIN_LATER, client.closeStatus);
+        assertEquals(1, queues.disconnectedSessions());
+    }
+
+    @Test
+    public void completedWritesDoNotTimeOut() throws Exception {
+        OutboundQueues queues = new OutboundQueues(8, TimeUnit.MILLISECONDS.toNanos(50));
+        SlowClient client = new SlowClient();
+        queues.open(client.session);
+
+        queues.send(client.session, SessionOutbox.Frame.text("note", false));
+        client.completeAll();
+        Thread.sleep(150);
+
+        assertEquals(0, client.closeStatus);
+        assertEquals(0, queues.disconnectedSessions());
+    }
+
+    @Test
+    public void sendAfterRemoveDoesNotRecreateTheOutbox() {
+        OutboundQueues queues = new OutboundQueues(8, TimeUnit.SECONDS.toNanos(10));
+        SlowClient client = new SlowClient();
+        queues.open(client.session);
+        queues.remove(client.session);
+
+        queues.send(client.session, SessionOutbox.Frame.text("note", false));
+
+        assertTrue(client.sent.isEmpty());
+        assertEquals(0, queues.totalDepth());
+    }
+
+    // Session whose writes only complete when the test says so
+    private static class SlowClient {
+        final List<String> sent = new ArrayList<>();
+        final List<WriteCallback> pending = new ArrayList<>();
+        volatile int closeStatus;
+        final Session session;
+
+        SlowClient() {
+            RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("sendString") && args.length == 2) {
+                            sent.add((String) args[0]);
+                            pending.add((WriteCallback) args[1]);
+                        }
+                        return null;
+                    });
+            session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getRemote" -> remote;
+                        case "isOpen" -> closeStatus == 0;
+                        case "close" -> {
+                            closeStatus = (int) args[0];
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+
+        void completeAll() {
+            while (!pending.isEmpty()) {
+                pending.remove(0).writeSuccess();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.Test;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionRegistryTests {
+
+    @Test
+    public void playersAreVisitedFirstAndEmptyGamesAreRemoved() {
+        SessionRegistry registry = new SessionRegistry();
+        Session observer = fakeSession();
+        Session player = fakeSession();
+        registry.add(1, observer, false);
+        registry.add(1, player, true);
+
+        List<Session> visited = new ArrayList<>();
+        registry.forEach(1, visited::add);
+        assertEquals(List.of(player, observer), visited);
+
+        registry.remove(1, player);
+        registry.remove(1, observer);
+        assertEquals(0, registry.gameCount());
+    }
+
+    @Test
+    public void concurrentJoinsAndLeavesLeaveNoEntries() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                int gameID = i % 4;
+                executor.submit(() -> {
+                    Session session = fakeSession();
+                    registry.add(gameID, session, false);
+                    registry.remove(gameID, session);
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        AtomicInteger remaining = new AtomicInteger();
+        for (int gameID = 0; gameID < 4; gameID++) {
+            registry.forEach(gameID, session -> remaining.incrementAndGet());
+        }
+        assertEquals(0, remaining.get());
+        assertEquals(0, registry.gameCount());
+    }
+
+    private static Session fakeSession() {
+        return (Session) Proxy.newProxyInstance(SessionRegistryTests.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
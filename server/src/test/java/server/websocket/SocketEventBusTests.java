@@ -0,0 +1,146 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMadeMessage;
+import websocket.messages.NotificationMessage;
+import java.io.UncheckedIOException;
+import java.net.BindException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SocketEventBusTests {
+
+    @Test
+    public void eventsReachEverySubscribedNode() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4));
+        game.makeMove(move);
+
+        try (SocketEventBroker broker = new SocketEventBroker(0);
+             SocketEventBus first = new SocketEventBus("localhost", broker.getPort());
+             SocketEventBus second = new SocketEventBus("localhost", broker.getPort())) {
+            BlockingQueue<GameEvent> firstEvents = listen(first);
+            BlockingQueue<GameEvent> secondEvents = listen(second);
+            first.subscribe(1);
+            // Once its own event comes back, the broker has seen the first node's subscription
+            first.publish(new GameEvent(1, null, new NotificationMessage("hello"), null));
+            assertEquals("hello", ((NotificationMessage) next(firstEvents).message()).getMessage());
+            second.subscribe(1);
+            second.subscribe(2);
+
+            second.publish(new GameEvent(2, "session", new NotificationMessage("only second"), null));
+            second.publish(new GameEvent(1, null, new LoadGameMessage(game),
+                    new MoveMadeMessage(move, MoveMadeMessage.GameStatus.IN_PROGRESS, game.positionHash(), 1)));
+
+            assertEquals("only second", ((NotificationMessage) next(secondEvents).message()).getMessage());
+            for (BlockingQueue<GameEvent> events : List.of(firstEvents, secondEvents)) {
+                GameEvent received = next(events);
+                assertEquals(1, received.gameID());
+                assertNull(received.excludedSessionId());
+                assertEquals(game, ((LoadGameMessage) received.message()).getGame());
+                assertEquals(move, received.delta().getMove());
+                assertEquals(game.positionHash(), received.delta().getPositionHash());
+            }
+            assertTrue(firstEvents.isEmpty());
+        }
+    }
+
+    @Test
+    public void unsubscribedNodeStopsReceiving() throws Exception {
+        try (SocketEventBroker broker = new SocketEventBroker(0);
+             SocketEventBus leaving = new SocketEventBus("localhost", broker.getPort());
+             SocketEventBus staying = new SocketEventBus("localhost", broker.getPort())) {
+            BlockingQueue<GameEvent> leavingEvents = listen(leaving);
+            BlockingQueue<GameEvent> stayingEvents = listen(staying);
+            leaving.subscribe(7);
+            staying.subscribe(7);
+            leaving.unsubscribe(7);
+
+            for (int i = 0; i < 3; i++) {
+                staying.publish(new GameEvent(7, null, new NotificationMessage("move " + i), null));
+            }
+
+            // Per-game order is preserved through the broker
+            for (int i = 0; i < 3; i++) {
+                assertEquals("move " + i, ((NotificationMessage) next(stayingEvents).message()).getMessage());
+            }
+            assertTrue(leavingEvents.isEmpty());
+        }
+    }
+
+    @Test
+    public void reconnectsAndResubscribesAfterBrokerRestart() throws Exception {
+        SocketEventBroker broker = new SocketEventBroker(0);
+        int port = broker.getPort();
+        try (SocketEventBus bus = new SocketEventBus("localhost", port, Duration.ofMillis(10),
+                Duration.ofMillis(100))) {
+            BlockingQueue<GameEvent> events = listen(bus);
+            bus.subscribe(3);
+            bus.publish(new GameEvent(3, null, new NotificationMessage("before"), null));
+            assertEquals("before", ((NotificationMessage) next(events).message()).getMessage());
+
+            broker.close();
+            assertThrows(UncheckedIOException.class, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    bus.publish(new GameEvent(3, null, new NotificationMessage("lost"), null));
+                    Thread.sleep(1);
+                }
+            });
+            broker = restart(port);
+
+            // Only a node that subscribed again gets its own event back
+            GameEvent received = null;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received == null && System.nanoTime() < deadline) {
+                try {
+                    bus.publish(new GameEvent(3, null, new NotificationMessage("after"), null));
+                } catch (UncheckedIOException e) {
+                    // Not reconnected yet
+                }
+                received = events.poll(50, TimeUnit.MILLISECONDS);
+            }
+            assertNotNull(received, "bus never reconnected");
+            while (received != null && !"after".equals(((NotificationMessage) received.message()).getMessage())) {
+                received = events.poll(1, TimeUnit.SECONDS);
+            }
+            assertNotNull(received);
+        } finally {
+            broker.close();
+        }
+    }
+
+    // The old listener can hold the port for a moment after close
+    private static SocketEventBroker restart(int port) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                return new SocketEventBroker(port);
+            } catch (BindException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static BlockingQueue<GameEvent> listen(GameEventBus bus) {
+        BlockingQueue<GameEvent> events = new LinkedBlockingQueue<>();
+        bus.setListener(events::add);
+        return events;
+    }
+
+    private static GameEvent next(BlockingQueue<GameEvent> events) throws InterruptedException {
+        GameEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event, "timed out waiting for event");
+        return event;
+    }
+}
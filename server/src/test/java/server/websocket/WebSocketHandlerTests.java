@@ -0,0 +1,153 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import dataaccess.MemoryDataAccess;
+import metrics.MetricsRegistry;
+import model.AuthData;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Test;
+import websocket.commands.ConnectCommand;
+import websocket.commands.MakeMoveCommand;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketHandlerTests {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void handledCommandsAreCountedAndTimedByPhase() throws Exception {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        dataAccess.createAuth(new AuthData("token", "alice"));
+        int gameID = dataAccess.createGame(new GameData(0, "alice", null, "game", new ChessGame()));
+        MetricsRegistry metrics = new MetricsRegistry();
+        WebSocketHandler.setDataAccess(dataAccess);
+        WebSocketHandler.setMetrics(metrics);
+        WebSocketHandler handler = new WebSocketHandler();
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Session session = clientSession(sent);
+
+        handler.onConnect(session);
+        try {
+            handler.onMessage(session, gson.toJson(new ConnectCommand("token", gameID, false)));
+            awaitSent(sent, 1);
+            handler.onMessage(session, gson.toJson(new MakeMoveCommand("token", gameID,
+                    new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)))));
+            awaitSent(sent, 2);
+
+            // Counted once the command finishes, which can be just after its reply is sent
+            awaitMetric(metrics, "chess_ws_commands_total{command=\"MAKE_MOVE\"} 1\n");
+            String text = metrics.scrape();
+            assertTrue(text.contains("chess_ws_commands_total{command=\"CONNECT\"} 1\n"), text);
+            assertTrue(text.contains("chess_ws_commands_total{command=\"MAKE_MOVE\"} 1\n"), text);
+            assertTrue(text.contains("chess_ws_command_seconds_count{command=\"MAKE_MOVE\"} 1\n"), text);
+            for (String phase : List.of("auth", "load", "validate", "persist", "broadcast")) {
+                assertTrue(text.contains("chess_ws_phase_seconds_count{command=\"MAKE_MOVE\",phase=\"" + phase
+                        + "\"} 1\n"), phase);
+            }
+            assertTrue(text.contains("chess_ws_open_sessions 1\n"), text);
+            assertFalse(text.contains("chess_ws_errors_total"), text);
+        } finally {
+            handler.onClose(session, 1000, "done");
+        }
+    }
+
+    @Test
+    public void brokerDyingMidPublishFailsNoCaller() throws Exception {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        dataAccess.createAuth(new AuthData("token", "alice"));
+        int gameID = dataAccess.createGame(new GameData(0, "alice", null, "game", new ChessGame()));
+        MetricsRegistry metrics = new MetricsRegistry();
+        WebSocketHandler.setDataAccess(dataAccess);
+        WebSocketHandler.setMetrics(metrics);
+        SocketEventBroker broker = new SocketEventBroker(0);
+        SocketEventBus bus = new SocketEventBus("localhost", broker.getPort());
+        WebSocketHandler.setEventBus(bus);
+        WebSocketHandler handler = new WebSocketHandler();
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Session session = clientSession(sent);
+
+        handler.onConnect(session);
+        try {
+            handler.onMessage(session, gson.toJson(new ConnectCommand("token", gameID, false)));
+            awaitSent(sent, 1);
+
+            AtomicReference<Throwable> escaped = new AtomicReference<>();
+            Thread publisher = Thread.ofVirtual().start(() -> {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                try {
+                    while (metrics.counter("chess_ws_bus_publish_failures_total", "").sum() == 0
+                            && System.nanoTime() < deadline) {
+                        WebSocketHandler.publishLobbyCleared();
+                        Thread.sleep(1);
+                    }
+                } catch (Throwable t) {
+                    escaped.set(t);
+                }
+            });
+            Thread.sleep(20);
+            broker.close();
+            publisher.join();
+            assertNull(escaped.get());
+            assertTrue(metrics.counter("chess_ws_bus_publish_failures_total", "").sum() > 0);
+
+            // The move is stored, and the mover still gets the new board from this node
+            handler.onMessage(session, gson.toJson(new MakeMoveCommand("token", gameID,
+                    new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)))));
+            awaitSent(sent, 2);
+            assertTrue(sent.get(1).contains("LOAD_GAME"), sent.get(1));
+            assertEquals(ChessGame.TeamColor.BLACK, dataAccess.getGame(gameID).getGame().getTeamTurn());
+            // Let the move finish before the next test swaps the static metrics registry
+            awaitMetric(metrics, "chess_ws_commands_total{command=\"MAKE_MOVE\"} 1\n");
+        } finally {
+            handler.onClose(session, 1000, "done");
+            WebSocketHandler.setEventBus(new InProcessEventBus());
+            bus.close();
+            broker.close();
+        }
+    }
+
+    private static void awaitMetric(MetricsRegistry metrics, String line) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!metrics.scrape().contains(line) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitSent(List<String> sent, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(sent.size() >= count, "Expected " + count + " messages, got " + sent);
+    }
+
+    // Session whose writes complete at once
+    private static Session clientSession(List<String> sent) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(WebSocketHandlerTests.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        sent.add((String) args[0]);
+                        ((WriteCallback) args[1]).writeSuccess();
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(WebSocketHandlerTests.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,47 @@
+package service;
+
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthTokenReaperTest {
+
+    @Test
+    @DisplayName("Reaper Deletes Expired Tokens In Batches")
+    public void reaperDeletesExpiredTokensInBatches() throws Exception {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        long hourAgo = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
+        List<AuthData> stale = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            stale.add(new AuthData("stale" + i, "user", hourAgo));
+        }
+        dataAccess.createAuths(stale);
+        dataAccess.createAuth(new AuthData("fresh", "user"));
+
+        AuthTokenReaper reaper = new AuthTokenReaper(dataAccess, Duration.ofMinutes(30), 3);
+
+        assertEquals(7, reaper.reap());
+        assertEquals(new AuthTokenReaper.Stats(1, 7, 7, reaper.stats().lastRunMillis()), reaper.stats());
+        assertNotNull(dataAccess.getAuth("fresh"));
+    }
+
+    @Test
+    @DisplayName("Stored Tokens Slide And Expire")
+    public void storedTokensSlideAndExpire() throws Exception {
+        MemoryDataAccess dataAccess = new MemoryDataAccess();
+        StoredAuthTokens tokens = new StoredAuthTokens(dataAccess, Duration.ofMinutes(30));
+        long now = System.currentTimeMillis();
+        dataAccess.createAuth(new AuthData("idle", "user", now - Duration.ofMinutes(20).toMillis()));
+        dataAccess.createAuth(new AuthData("expired", "user", now - Duration.ofMinutes(40).toMillis()));
+
+        assertEquals("user", tokens.validate("idle").getUsername());
+        assertTrue(dataAccess.getAuth("idle").getLastUsed() >= now);
+        assertNull(tokens.validate("expired"));
+        assertFalse(tokens.revoke("expired"));
+    }
+}
@@ -0,0 +1,120 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameServiceTest {
+
+    private DataAccess dataAccess;
+    private GameService gameService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataAccess = new MemoryDataAccess();
+        gameService = new GameService(dataAccess);
+        dataAccess.createAuth(new AuthData("token1", "player1"));
+        dataAccess.createAuth(new AuthData("token2", "player2"));
+    }
+
+    @Test
+    @DisplayName("Join Success")
+    public void joinSuccess() throws Exception {
+        int gameID = gameService.createGame(new GameService.CreateGameRequest("game"), "token1").gameID();
+
+        gameService.joinGame(new GameService.JoinGameRequest("WHITE", gameID), "token1");
+
+        GameData game = dataAccess.getGame(gameID);
+        assertEquals("player1", game.getWhiteUsername());
+        assertEquals(1, game.getVersion());
+    }
+
+    @Test
+    @DisplayName("Join Failure - Seat Taken")
+    public void joinFailureSeatTaken() throws Exception {
+        int gameID = gameService.createGame(new GameService.CreateGameRequest("game"), "token1").gameID();
+        gameService.joinGame(new GameService.JoinGameRequest("WHITE", gameID), "token1");
+
+        DataAccessException exception = assertThrows(DataAccessException.class, () -> {
+            gameService.joinGame(new GameService.JoinGameRequest("WHITE", gameID), "token2");
+        });
+
+        assertTrue(exception.getMessage().contains("already taken"));
+    }
+
+    @Test
+    @DisplayName("Concurrent Joins Assign Seat Once")
+    public void concurrentJoinsAssignSeatOnce() throws Exception {
+        int gameID = gameService.createGame(new GameService.CreateGameRequest("game"), "token1").gameID();
+
+        int[] wins = new int[2];
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    gameService.joinGame(new GameService.JoinGameRequest("BLACK", gameID), "token" + (index + 1));
+                    wins[index] = 1;
+                } catch (DataAccessException e) {
+                    assertTrue(e.getMessage().contains("already taken"));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, wins[0] + wins[1]);
+        assertNotNull(dataAccess.getGame(gameID).getBlackUsername());
+    }
+
+    @Test
+    @DisplayName("Update Rejects Stale Version")
+    public void updateRejectsStaleVersion() throws Exception {
+        int gameID = dataAccess.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        GameData original = dataAccess.getGame(gameID);
+
+        assertTrue(dataAccess.updateGame(new GameData(gameID, "player1", null, "game", original.getGame(), 0)));
+        assertFalse(dataAccess.updateGame(new GameData(gameID, null, "player2", "game", original.getGame(), 0)));
+
+        GameData current = dataAccess.getGame(gameID);
+        assertEquals("player1", current.getWhiteUsername());
+        assertNull(current.getBlackUsername());
+    }
+
+    @Test
+    @DisplayName("Unchanged Listing Is Not Resent")
+    public void unchangedListingIsNotResent() throws Exception {
+        gameService.createGame(new GameService.CreateGameRequest("game"), "token1");
+        GameService.ConditionalListing first = gameService.listGamesIfChanged("token1", false, null);
+        assertEquals(1, count(first.games()));
+
+        GameService.ConditionalListing repeat = gameService.listGamesIfChanged("token2", false, "W/" + first.etag());
+        assertEquals(first.etag(), repeat.etag());
+        assertNull(repeat.games());
+
+        gameService.createGame(new GameService.CreateGameRequest("other"), "token1");
+        GameService.ConditionalListing changed = gameService.listGamesIfChanged("token1", false, first.etag());
+        assertNotEquals(first.etag(), changed.etag());
+        assertEquals(2, count(changed.games()));
+    }
+
+    private static int count(GameService.GameCursor games) throws Exception {
+        List<GameData> visited = new ArrayList<>();
+        games.forEach(visited::add);
+        return visited.size();
+    }
+}
@@ -0,0 +1,75 @@
+package service;
+
+import dataaccess.DataAccessException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    @Test
+    @DisplayName("Hash Uses Configured Cost")
+    public void hashUsesConfiguredCost() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(5, 1, 4)) {
+            String hash = hasher.hash("password");
+
+            assertTrue(hash.startsWith("$2a$05$"));
+            assertTrue(hasher.verify("password", hash));
+            assertFalse(hasher.verify("wrong", hash));
+            assertEquals(1, hasher.stats().hashes());
+            assertEquals(2, hasher.stats().verifications());
+        }
+    }
+
+    @Test
+    @DisplayName("Saturated Pool Rejects Immediately")
+    public void saturatedPoolRejectsImmediately() throws Exception {
+        // One thread and one queue slot: of several slow hashes started together, some must be refused
+        try (PasswordHasher hasher = new PasswordHasher(13, 1, 1);
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> hasher.hash("password")));
+            }
+
+            int busy = 0;
+            for (Future<String> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    assertInstanceOf(DataAccessException.class, e.getCause());
+                    assertEquals("Error: server busy", e.getCause().getMessage());
+                    busy++;
+                }
+            }
+            assertTrue(busy >= 2);
+            assertEquals(busy, hasher.stats().rejected());
+        }
+    }
+
+    @Test
+    @DisplayName("Cost Is Read From Hash And Benchmarked Within Bounds")
+    public void costIsReadFromHashAndBenchmarkedWithinBounds() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(6, 1, 4)) {
+            String hash = hasher.hash("password");
+
+            assertEquals(6, PasswordHasher.costOf(hash));
+            assertFalse(hasher.needsRehash(hash));
+            assertTrue(hasher.needsRehash("password"));
+            assertTrue(hasher.needsRehash(BCrypt.hashpw("password", BCrypt.gensalt(5))));
+            assertFalse(hasher.needsRehash(BCrypt.hashpw("password", BCrypt.gensalt(7))));
+            assertEquals(-1, PasswordHasher.costOf("password"));
+        }
+
+        int cost = PasswordHasher.benchmarkCost(100);
+        assertTrue(cost >= PasswordHasher.MIN_COST && cost <= PasswordHasher.MAX_COST);
+        assertEquals(PasswordHasher.MIN_COST, PasswordHasher.benchmarkCost(0));
+    }
+}
@@ -0,0 +1,93 @@
+package service;
+
+import dataaccess.MemoryDataAccess;
+import model.AuthData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignedAuthTokensTest {
+
+    private final MemoryDataAccess dataAccess = new MemoryDataAccess();
+
+    @Test
+    @DisplayName("Tokens Validate Without A Store And Reject Tampering")
+    public void tokensValidateAndRejectTampering() throws Exception {
+        SignedAuthTokens tokens = new SignedAuthTokens(SignedAuthTokens.parseKeys(null), Duration.ofHours(1),
+                dataAccess);
+        String token = tokens.issue("alice").getAuthToken();
+
+        assertEquals("alice", tokens.validate(token).getUsername());
+        assertNotEquals(token, tokens.issue("alice").getAuthToken());
+
+        String[] parts = token.split("\\.");
+        parts[1] = Base64.getUrlEncoder().withoutPadding().encodeToString("mallory".getBytes(StandardCharsets.UTF_8));
+        assertNull(tokens.validate(String.join(".", parts)));
+        assertNull(tokens.validate("not-a-token"));
+        assertNull(tokens.validate(null));
+    }
+
+    @Test
+    @DisplayName("Logout And Clear Revoke Tokens")
+    public void logoutAndClearRevokeTokens() throws Exception {
+        SignedAuthTokens tokens = new SignedAuthTokens(SignedAuthTokens.parseKeys(null), Duration.ofHours(1),
+                dataAccess);
+        AuthData first = tokens.issue("alice");
+        AuthData second = tokens.issue("alice");
+
+        assertTrue(tokens.revoke(first.getAuthToken()));
+        assertFalse(tokens.revoke(first.getAuthToken()));
+        assertNull(tokens.validate(first.getAuthToken()));
+        assertNotNull(tokens.validate(second.getAuthToken()));
+        assertEquals(1, tokens.revokedCount());
+
+        dataAccess.clear();
+        tokens.revokeAll();
+        assertNull(tokens.validate(second.getAuthToken()));
+        assertNotNull(tokens.validate(tokens.issue("alice").getAuthToken()));
+    }
+
+    @Test
+    @DisplayName("Old Keys Keep Verifying After Rotation")
+    public void oldKeysKeepVerifyingAfterRotation() throws Exception {
+        String oldSecret = Base64.getEncoder().encodeToString(new byte[32]);
+        String newSecret = Base64.getEncoder().encodeToString("a different thirty-two byte key!".getBytes(StandardCharsets.UTF_8));
+        SignedAuthTokens before = new SignedAuthTokens(SignedAuthTokens.parseKeys("k1:" + oldSecret),
+                Duration.ofHours(1), dataAccess);
+        SignedAuthTokens after = new SignedAuthTokens(
+                SignedAuthTokens.parseKeys("k2:" + newSecret + ",k1:" + oldSecret), Duration.ofHours(1), dataAccess);
+        Map<String, byte[]> newOnly = new LinkedHashMap<>(SignedAuthTokens.parseKeys("k2:" + newSecret));
+
+        String oldToken = before.issue("bob").getAuthToken();
+
+        assertEquals("bob", after.validate(oldToken).getUsername());
+        assertTrue(after.issue("bob").getAuthToken().startsWith("k2."));
+        assertNull(new SignedAuthTokens(newOnly, Duration.ofHours(1), dataAccess).validate(oldToken));
+        assertNull(new SignedAuthTokens(SignedAuthTokens.parseKeys("k1:" + oldSecret), Duration.ZERO.minusMillis(1),
+                dataAccess).validate(oldToken));
+    }
+
+    @Test
+    @DisplayName("Clear On One Node Revokes Tokens On Every Node")
+    public void clearOnOneNodeRevokesTokensOnEveryNode() throws Exception {
+        Map<String, byte[]> keys = SignedAuthTokens.parseKeys(null);
+        SignedAuthTokens first = new SignedAuthTokens(keys, Duration.ofHours(1), dataAccess, Duration.ZERO);
+        SignedAuthTokens second = new SignedAuthTokens(keys, Duration.ofHours(1), dataAccess, Duration.ZERO);
+        String fromFirst = first.issue("alice").getAuthToken();
+        String fromSecond = second.issue("bob").getAuthToken();
+
+        dataAccess.clear();
+        first.revokeAll();
+
+        assertNull(first.validate(fromSecond));
+        assertNull(second.validate(fromFirst));
+        assertNull(second.validate(fromSecond));
+        String after = first.issue("alice").getAuthToken();
+        assertEquals("alice", second.validate(after).getUsername());
+    }
+}
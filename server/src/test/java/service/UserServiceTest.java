@@ -5,6 +5,7 @@ import dataaccess.DataAccessException;
 import dataaccess.MemoryDataAccess;
 import model.UserData;
 import model.AuthData;
+import org.mindrot.jbcrypt.BCrypt;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -143,4 +144,20 @@ public class UserServiceTest {
 
         assertTrue(exception.getMessage().contains("unauthorized"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Login Rehashes Outdated Passwords")
+    public void loginRehashesOutdatedPasswords() throws Exception {
+        UserService service = new UserService(dataAccess, new PasswordHasher(5, 1, 4));
+        dataAccess.createUser(new UserData("plain", "password", "plain@email.com"));
+        dataAccess.createUser(new UserData("cheap", BCrypt.hashpw("password",
+                BCrypt.gensalt(4)), "cheap@email.com"));
+
+        service.login(new UserService.LoginRequest("plain", "password"));
+        service.login(new UserService.LoginRequest("cheap", "password"));
+
+        assertEquals(5, PasswordHasher.costOf(dataAccess.getUser("plain").getPassword()));
+        assertEquals(5, PasswordHasher.costOf(dataAccess.getUser("cheap").getPassword()));
+        assertNotNull(service.login(new UserService.LoginRequest("plain", "password")).authToken());
+    }
+}
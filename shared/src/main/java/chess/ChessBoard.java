@@ -16,6 +16,19 @@ public class ChessBoard {
         board = new ChessPiece[8][8];
     }
 
+    /**
+     * Creates an independent copy of another board. Pieces are immutable, so
+     * only the grid itself needs copying.
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        board = new ChessPiece[8][];
+        for (int row = 0; row < 8; row++) {
+            board[row] = other.board[row].clone();
+        }
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
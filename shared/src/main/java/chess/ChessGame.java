@@ -20,6 +20,17 @@ public class ChessGame {
         this.gameBoard.resetBoard();
     }
 
+    /**
+     * Creates an independent copy of another game, so that moves made on one
+     * do not affect the other
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.currentTeam = other.currentTeam;
+        this.gameBoard = new ChessBoard(other.gameBoard);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -203,6 +214,26 @@ public class ChessGame {
         return gameBoard;
     }
 
+    /**
+     * Hashes the pieces on the board and the team to move with 64-bit FNV-1a. Unlike
+     * hashCode, the result only depends on the position, so a client and the server can
+     * compare it to check that they hold the same game.
+     *
+     * @return the position hash
+     */
+    public long positionHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = gameBoard.getPiece(new ChessPosition(row, col));
+                int code = piece == null ? 0 :
+                        1 + piece.getPieceType().ordinal() * 2 + piece.getTeamColor().ordinal();
+                hash = (hash ^ code) * 0x100000001b3L;
+            }
+        }
+        return (hash ^ currentTeam.ordinal()) * 0x100000001b3L;
+    }
+
     // Helper Functions
     private boolean wouldLeaveKingInCheck(ChessMove move, TeamColor teamColor) {
         ChessPiece originalPiece = gameBoard.getPiece(move.getStartPosition());
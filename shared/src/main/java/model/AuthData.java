@@ -3,10 +3,19 @@ package model;
 public class AuthData {
     private final String authToken;
     private final String username;
+    private final long lastUsed;
 
     public AuthData(String authToken, String username) {
+        this(authToken, username, System.currentTimeMillis());
+    }
+
+    /**
+     * @param lastUsed epoch millis of the token's most recent use, for sliding expiry
+     */
+    public AuthData(String authToken, String username, long lastUsed) {
         this.authToken = authToken;
         this.username = username;
+        this.lastUsed = lastUsed;
     }
 
     public String getAuthToken() {
@@ -16,4 +25,12 @@ public class AuthData {
     public String getUsername() {
         return username;
     }
-}
\ No newline at end of file
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public AuthData withLastUsed(long lastUsed) {
+        return new AuthData(authToken, username, lastUsed);
+    }
+}
@@ -3,18 +3,61 @@ package model;
 import chess.ChessGame;
 
 public class GameData {
+
+    /**
+     * How a finished game came out
+     */
+    public enum Result {
+        WHITE_WON,
+        BLACK_WON,
+        DRAW
+    }
+
+    /**
+     * Why a finished game ended
+     */
+    public enum Termination {
+        RESIGNATION,
+        CHECKMATE,
+        STALEMATE,
+        DRAW
+    }
+
     private final int gameID;
     private final String whiteUsername;
     private final String blackUsername;
     private final String gameName;
     private final ChessGame game;
+    private final int version;
+    private final Result result;
+    private final Termination termination;
 
     public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+        this(gameID, whiteUsername, blackUsername, gameName, game, 0);
+    }
+
+    /**
+     * @param version the row version this data was read at; updateGame only succeeds
+     *                while the stored version still matches it
+     */
+    public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game, int version) {
+        this(gameID, whiteUsername, blackUsername, gameName, game, version, null, null);
+    }
+
+    /**
+     * @param result      the outcome, or null while the game is still being played
+     * @param termination why the game ended, or null while the game is still being played
+     */
+    public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game,
+                    int version, Result result, Termination termination) {
         this.gameID = gameID;
         this.whiteUsername = whiteUsername;
         this.blackUsername = blackUsername;
         this.gameName = gameName;
         this.game = game;
+        this.version = version;
+        this.result = result;
+        this.termination = termination;
     }
 
     public int getGameID() {
@@ -36,4 +79,44 @@ public class GameData {
     public ChessGame getGame() {
         return game;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    /**
+     * @return true once the game has a recorded result; no further moves are allowed
+     */
+    public boolean isOver() {
+        return result != null;
+    }
+
+    /**
+     * @return a copy with a new board and everything else, including the version, kept
+     */
+    public GameData withGame(ChessGame newGame) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, newGame, version, result, termination);
+    }
+
+    /**
+     * @return a copy with new players and everything else, including the version, kept
+     */
+    public GameData withPlayers(String newWhiteUsername, String newBlackUsername) {
+        return new GameData(gameID, newWhiteUsername, newBlackUsername, gameName, game, version, result, termination);
+    }
+
+    /**
+     * @return a copy that records how the game ended
+     */
+    public GameData withOutcome(Result newResult, Termination newTermination) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game, version, newResult, newTermination);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package websocket;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Building blocks of the binary WebSocket protocol shared by CommandCodec and
+ * MessageCodec. Every frame starts with the protocol version and a type byte; numbers
+ * are big-endian, strings are a length-prefixed UTF-8 run (-1 for null), a move is five
+ * bytes and a game is the side to move followed by one byte per square.
+ * <p>
+ * Readers throw IllegalArgumentException for frames that are truncated or malformed.
+ */
+public final class BinaryFormat {
+    public static final byte VERSION = 1;
+
+    private static final int SQUARES = 64;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Growable output buffer for one frame.
+     */
+    public static final class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        public Writer(int type) {
+            out.write(VERSION);
+            out.write(type);
+        }
+
+        public Writer writeByte(int value) {
+            out.write(value);
+            return this;
+        }
+
+        public Writer writeInt(int value) {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+            return this;
+        }
+
+        public Writer writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            return writeInt((int) value);
+        }
+
+        public Writer writeString(String value) {
+            if (value == null) {
+                return writeInt(-1);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        public Writer writeMove(ChessMove move) {
+            writeByte(move.getStartPosition().getRow()).writeByte(move.getStartPosition().getColumn());
+            writeByte(move.getEndPosition().getRow()).writeByte(move.getEndPosition().getColumn());
+            ChessPiece.PieceType promotion = move.getPromotionPiece();
+            return writeByte(promotion == null ? 0 : promotion.ordinal() + 1);
+        }
+
+        public Writer writeGame(ChessGame game) {
+            writeByte(game.getTeamTurn().ordinal());
+            ChessBoard board = game.getBoard();
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                    writeByte(piece == null ? 0 :
+                            1 + piece.getPieceType().ordinal() * 2 + piece.getTeamColor().ordinal());
+                }
+            }
+            return this;
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Checks the version byte and returns the frame type.
+     */
+    public static int readHeader(ByteBuffer in) {
+        byte version = readByte(in);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported protocol version " + version);
+        }
+        return readByte(in);
+    }
+
+    public static byte readByte(ByteBuffer in) {
+        try {
+            return in.get();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame", e);
+        }
+    }
+
+    public static int readInt(ByteBuffer in) {
+        try {
+            return in.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame", e);
+        }
+    }
+
+    public static long readLong(ByteBuffer in) {
+        try {
+            return in.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated frame", e);
+        }
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = readInt(in);
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static ChessMove readMove(ByteBuffer in) {
+        ChessPosition start = readPosition(in);
+        ChessPosition end = readPosition(in);
+        int promotion = readByte(in);
+        if (promotion == 0) {
+            return new ChessMove(start, end);
+        }
+        return new ChessMove(start, end, enumAt(ChessPiece.PieceType.values(), promotion - 1));
+    }
+
+    public static ChessGame readGame(ByteBuffer in) {
+        ChessGame game = new ChessGame();
+        game.setTeamTurn(enumAt(ChessGame.TeamColor.values(), readByte(in)));
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < SQUARES; square++) {
+            int code = readByte(in);
+            if (code != 0) {
+                ChessPiece.PieceType type = enumAt(ChessPiece.PieceType.values(), (code - 1) / 2);
+                ChessGame.TeamColor color = enumAt(ChessGame.TeamColor.values(), (code - 1) % 2);
+                board.addPiece(new ChessPosition(square / 8 + 1, square % 8 + 1), new ChessPiece(color, type));
+            }
+        }
+        game.setBoard(board);
+        return game;
+    }
+
+    public static <E extends Enum<E>> E enumAt(E[] values, int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown " + values.getClass().getComponentType().getSimpleName()
+                    + " " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static ChessPosition readPosition(ByteBuffer in) {
+        int row = readByte(in);
+        int col = readByte(in);
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IllegalArgumentException("Bad position " + row + "," + col);
+        }
+        return new ChessPosition(row, col);
+    }
+}
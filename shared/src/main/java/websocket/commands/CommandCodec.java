@@ -0,0 +1,52 @@
+package websocket.commands;
+
+import websocket.BinaryFormat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of the commands a client sends, as an alternative to JSON text frames.
+ * A command is its type, game ID (-1 for none) and auth token, followed by the move for
+ * MAKE_MOVE or a flags byte for CONNECT.
+ */
+public final class CommandCodec {
+    private static final int FLAG_DELTA_UPDATES = 1;
+    private static final int FLAG_BINARY_FRAMES = 2;
+
+    private CommandCodec() {
+    }
+
+    public static byte[] encode(UserGameCommand command) {
+        BinaryFormat.Writer out = new BinaryFormat.Writer(command.getCommandType().ordinal());
+        out.writeInt(command.getGameID() == null ? -1 : command.getGameID());
+        out.writeString(command.getAuthToken());
+        if (command instanceof MakeMoveCommand makeMove) {
+            out.writeMove(makeMove.getMove());
+        } else if (command instanceof ConnectCommand connect) {
+            out.writeByte((connect.wantsDeltaUpdates() ? FLAG_DELTA_UPDATES : 0)
+                    | (connect.wantsBinaryFrames() ? FLAG_BINARY_FRAMES : 0));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return a MakeMoveCommand or ConnectCommand where the type calls for one
+     * @throws IllegalArgumentException if the frame is not a valid command
+     */
+    public static UserGameCommand decode(ByteBuffer in) {
+        UserGameCommand.CommandType type = BinaryFormat.enumAt(UserGameCommand.CommandType.values(),
+                BinaryFormat.readHeader(in));
+        int gameID = BinaryFormat.readInt(in);
+        Integer boxedGameID = gameID == -1 ? null : gameID;
+        String authToken = BinaryFormat.readString(in);
+        return switch (type) {
+            case MAKE_MOVE -> new MakeMoveCommand(authToken, boxedGameID, BinaryFormat.readMove(in));
+            case CONNECT -> {
+                int flags = BinaryFormat.readByte(in);
+                yield new ConnectCommand(authToken, boxedGameID,
+                        (flags & FLAG_DELTA_UPDATES) != 0, (flags & FLAG_BINARY_FRAMES) != 0);
+            }
+            default -> new UserGameCommand(type, authToken, boxedGameID);
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package websocket.commands;
+
+import chess.ChessMove;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads a JSON command in a single streaming pass and builds the subtype its commandType
+ * calls for, so a MAKE_MOVE comes back as a MakeMoveCommand and a CONNECT as a
+ * ConnectCommand without parsing the text a second time. Fields may appear in any order
+ * and unknown fields are skipped.
+ * <p>
+ * Register it for UserGameCommand with GsonBuilder.registerTypeAdapter.
+ */
+public class CommandJsonAdapter extends TypeAdapter<UserGameCommand> {
+    private final TypeAdapter<ChessMove> moveAdapter = new Gson().getAdapter(ChessMove.class);
+
+    @Override
+    public void write(JsonWriter out, UserGameCommand command) throws IOException {
+        if (command == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("commandType").value(command.getCommandType().name());
+        out.name("authToken").value(command.getAuthToken());
+        out.name("gameID").value(command.getGameID());
+        if (command instanceof MakeMoveCommand makeMove) {
+            out.name("move");
+            moveAdapter.write(out, makeMove.getMove());
+        } else if (command instanceof ConnectCommand connect) {
+            out.name("deltaUpdates").value(connect.wantsDeltaUpdates());
+            out.name("binaryFrames").value(connect.wantsBinaryFrames());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public UserGameCommand read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        UserGameCommand.CommandType type = null;
+        String authToken = null;
+        Integer gameID = null;
+        ChessMove move = null;
+        boolean deltaUpdates = false;
+        boolean binaryFrames = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "commandType" -> type = parseType(in.nextString());
+                case "authToken" -> authToken = in.nextString();
+                case "gameID" -> gameID = readInt(in, name);
+                case "move" -> move = moveAdapter.read(in);
+                case "deltaUpdates" -> deltaUpdates = in.nextBoolean();
+                case "binaryFrames" -> binaryFrames = in.nextBoolean();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (type == null) {
+            throw new JsonParseException("Missing commandType");
+        }
+        return switch (type) {
+            case MAKE_MOVE -> new MakeMoveCommand(authToken, gameID, move);
+            case CONNECT -> new ConnectCommand(authToken, gameID, deltaUpdates, binaryFrames);
+            default -> new UserGameCommand(type, authToken, gameID);
+        };
+    }
+
+    // Gson only wraps IllegalStateException and IOException, so a bad number would escape as itself
+    private static int readInt(JsonReader in, String name) throws IOException {
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonParseException("Expected an integer for " + name, e);
+        }
+    }
+
+    private static UserGameCommand.CommandType parseType(String value) {
+        try {
+            return UserGameCommand.CommandType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Unknown commandType " + value);
+        }
+    }
+}
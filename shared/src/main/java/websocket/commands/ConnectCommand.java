@@ -0,0 +1,34 @@
+package websocket.commands;
+
+/**
+ * CONNECT with the optional features this client supports. A plain UserGameCommand
+ * CONNECT is treated as a client that supports none of them.
+ */
+public class ConnectCommand extends UserGameCommand {
+    private final boolean deltaUpdates;
+    private final boolean binaryFrames;
+
+    public ConnectCommand(String authToken, Integer gameID, boolean deltaUpdates) {
+        this(authToken, gameID, deltaUpdates, false);
+    }
+
+    public ConnectCommand(String authToken, Integer gameID, boolean deltaUpdates, boolean binaryFrames) {
+        super(CommandType.CONNECT, authToken, gameID);
+        this.deltaUpdates = deltaUpdates;
+        this.binaryFrames = binaryFrames;
+    }
+
+    /**
+     * @return true if the client wants MOVE_MADE deltas instead of a LOAD_GAME after each move
+     */
+    public boolean wantsDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    /**
+     * @return true if the server should send this client binary frames encoded by MessageCodec
+     */
+    public boolean wantsBinaryFrames() {
+        return binaryFrames;
+    }
+}
@@ -26,7 +26,10 @@ public class UserGameCommand {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        RESYNC,
+        SUBSCRIBE_LOBBY,
+        UNSUBSCRIBE_LOBBY
     }
 
     public CommandType getCommandType() {
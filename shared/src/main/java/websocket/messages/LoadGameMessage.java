@@ -2,13 +2,27 @@ package websocket.messages;
 
 public class LoadGameMessage extends ServerMessage {
     private final Object game;
+    private final int version;
 
     public LoadGameMessage(Object game) {
+        this(game, 0);
+    }
+
+    public LoadGameMessage(Object game, int version) {
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
+        this.version = version;
     }
 
     public Object getGame() {
         return game;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the game's version this board shows, or 0 if unknown. A MOVE_MADE whose
+     *         sequence is at or below it is already on this board.
+     */
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,51 @@
+package websocket.messages;
+
+import model.GameData;
+
+import java.util.List;
+
+/**
+ * Pushed to sessions subscribed to the lobby. A SNAPSHOT lists every game and is sent
+ * once, right after SUBSCRIBE_LOBBY; every other change carries the one game it is about.
+ * Games are sent without their board, so a LOBBY message stays small however far the
+ * games have been played.
+ * <p>
+ * Changes from different writers can arrive out of order, and the snapshot can arrive after
+ * changes that are newer than it. A client should keep, per game, whichever copy has the
+ * highest version, and drop everything it knows on CLEARED.
+ */
+public class LobbyMessage extends ServerMessage {
+    private final Change change;
+    private final List<GameData> games;
+
+    public enum Change {
+        SNAPSHOT,
+        CREATED,
+        JOINED,
+        LEFT,
+        FINISHED,
+        CLEARED
+    }
+
+    public LobbyMessage(Change change, List<GameData> games) {
+        super(ServerMessageType.LOBBY);
+        this.change = change;
+        this.games = games;
+    }
+
+    /**
+     * @return a copy of game without its board
+     */
+    public static GameData summaryOf(GameData game) {
+        return new GameData(game.getGameID(), game.getWhiteUsername(), game.getBlackUsername(), game.getGameName(),
+                null, game.getVersion(), game.getResult(), game.getTermination());
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public List<GameData> getGames() {
+        return games;
+    }
+}
@@ -0,0 +1,91 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import model.GameData;
+import websocket.BinaryFormat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of the messages the server sends, as an alternative to JSON text
+ * frames. A LOAD_GAME carries the 65-byte board encoding instead of Gson's object graph,
+ * followed by the game's version.
+ * A LOBBY is its change, a game count and then each game's ID, version, name, players,
+ * and result and termination as ordinal + 1 with 0 for none.
+ */
+public final class MessageCodec {
+
+    private MessageCodec() {
+    }
+
+    public static byte[] encode(ServerMessage message) {
+        BinaryFormat.Writer out = new BinaryFormat.Writer(message.getServerMessageType().ordinal());
+        switch (message) {
+            case LoadGameMessage load -> {
+                if (!(load.getGame() instanceof ChessGame game)) {
+                    throw new IllegalArgumentException("LOAD_GAME must carry a ChessGame");
+                }
+                out.writeGame(game).writeInt(load.getVersion());
+            }
+            case ErrorMessage error -> out.writeString(error.getErrorMessage());
+            case NotificationMessage notification -> out.writeString(notification.getMessage());
+            case MoveMadeMessage moveMade -> out.writeMove(moveMade.getMove())
+                    .writeByte(moveMade.getStatus().ordinal())
+                    .writeLong(moveMade.getPositionHash())
+                    .writeInt(moveMade.getSequence());
+            case LobbyMessage lobby -> {
+                out.writeByte(lobby.getChange().ordinal()).writeInt(lobby.getGames().size());
+                for (GameData game : lobby.getGames()) {
+                    out.writeInt(game.getGameID()).writeInt(game.getVersion()).writeString(game.getGameName())
+                            .writeString(game.getWhiteUsername()).writeString(game.getBlackUsername())
+                            .writeByte(game.getResult() == null ? 0 : game.getResult().ordinal() + 1)
+                            .writeByte(game.getTermination() == null ? 0 : game.getTermination().ordinal() + 1);
+                }
+            }
+            default -> {
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the frame is not a valid message
+     */
+    public static ServerMessage decode(ByteBuffer in) {
+        ServerMessage.ServerMessageType type = BinaryFormat.enumAt(ServerMessage.ServerMessageType.values(),
+                BinaryFormat.readHeader(in));
+        return switch (type) {
+            case LOAD_GAME -> new LoadGameMessage(BinaryFormat.readGame(in), BinaryFormat.readInt(in));
+            case ERROR -> new ErrorMessage(BinaryFormat.readString(in));
+            case NOTIFICATION -> new NotificationMessage(BinaryFormat.readString(in));
+            case MOVE_MADE -> new MoveMadeMessage(BinaryFormat.readMove(in),
+                    BinaryFormat.enumAt(MoveMadeMessage.GameStatus.values(), BinaryFormat.readByte(in)),
+                    BinaryFormat.readLong(in), BinaryFormat.readInt(in));
+            case LOBBY -> readLobby(in);
+        };
+    }
+
+    private static LobbyMessage readLobby(ByteBuffer in) {
+        LobbyMessage.Change change = BinaryFormat.enumAt(LobbyMessage.Change.values(), BinaryFormat.readByte(in));
+        int count = BinaryFormat.readInt(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Bad game count " + count);
+        }
+        List<GameData> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int gameID = BinaryFormat.readInt(in);
+            int version = BinaryFormat.readInt(in);
+            String name = BinaryFormat.readString(in);
+            String white = BinaryFormat.readString(in);
+            String black = BinaryFormat.readString(in);
+            int result = BinaryFormat.readByte(in);
+            int termination = BinaryFormat.readByte(in);
+            games.add(new GameData(gameID, white, black, name, null, version,
+                    result == 0 ? null : BinaryFormat.enumAt(GameData.Result.values(), result - 1),
+                    termination == 0 ? null : BinaryFormat.enumAt(GameData.Termination.values(), termination - 1)));
+        }
+        return new LobbyMessage(change, games);
+    }
+}
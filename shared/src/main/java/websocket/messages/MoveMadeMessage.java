@@ -0,0 +1,49 @@
+package websocket.messages;
+
+import chess.ChessMove;
+
+/**
+ * Sent instead of a full LOAD_GAME after a move to clients that asked for delta updates.
+ * The client applies the move to its own copy of the game and compares the resulting
+ * position hash; on a mismatch it sends RESYNC to get the full game again.
+ */
+public class MoveMadeMessage extends ServerMessage {
+    private final ChessMove move;
+    private final GameStatus status;
+    private final long positionHash;
+    private final int sequence;
+
+    public enum GameStatus {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    public MoveMadeMessage(ChessMove move, GameStatus status, long positionHash, int sequence) {
+        super(ServerMessageType.MOVE_MADE);
+        this.move = move;
+        this.status = status;
+        this.positionHash = positionHash;
+        this.sequence = sequence;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * @return the game's version after this move; increases with every stored change
+     */
+    public int getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionHashTests {
+
+    @Test
+    public void startingPositionHashIsPinned() {
+        // Clients and servers compare this value over the wire, so it must never change by accident
+        assertEquals(0x71aaf8a5d178ce7bL, new ChessGame().positionHash());
+    }
+
+    @Test
+    public void equalPositionsHashEqually() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(3, 6, 1, 7));
+        game.makeMove(move(6, 6, 8, 7));
+
+        assertEquals(new ChessGame().positionHash(), game.positionHash());
+        assertEquals(game.positionHash(), new ChessGame(game).positionHash());
+    }
+
+    @Test
+    public void sideToMoveChangesTheHash() {
+        ChessGame blackToMove = new ChessGame();
+        blackToMove.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        assertNotEquals(new ChessGame().positionHash(), blackToMove.positionHash());
+    }
+
+    @Test
+    public void differentPiecesChangeTheHash() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        assertNotEquals(new ChessGame().positionHash(), game.positionHash());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
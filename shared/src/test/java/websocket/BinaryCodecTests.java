@@ -0,0 +1,98 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+import websocket.commands.CommandCodec;
+import websocket.commands.ConnectCommand;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.LobbyMessage;
+import websocket.messages.MessageCodec;
+import websocket.messages.MoveMadeMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCodecTests {
+
+    @Test
+    public void commandsRoundTrip() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+
+        MakeMoveCommand makeMove = (MakeMoveCommand) decode(new MakeMoveCommand("token", 12, move));
+        assertEquals("token", makeMove.getAuthToken());
+        assertEquals(12, makeMove.getGameID());
+        assertEquals(move, makeMove.getMove());
+
+        ConnectCommand connect = (ConnectCommand) decode(new ConnectCommand("token", 3, false, true));
+        assertFalse(connect.wantsDeltaUpdates());
+        assertTrue(connect.wantsBinaryFrames());
+
+        UserGameCommand leave = decode(new UserGameCommand(UserGameCommand.CommandType.LEAVE, null, null));
+        assertEquals(UserGameCommand.CommandType.LEAVE, leave.getCommandType());
+        assertNull(leave.getAuthToken());
+        assertNull(leave.getGameID());
+    }
+
+    @Test
+    public void messagesRoundTrip() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5));
+        game.makeMove(move);
+
+        LoadGameMessage load = (LoadGameMessage) decode(new LoadGameMessage(game, 3));
+        assertEquals(game, load.getGame());
+        assertEquals(3, load.getVersion());
+
+        MoveMadeMessage moveMade = (MoveMadeMessage) decode(new MoveMadeMessage(move,
+                MoveMadeMessage.GameStatus.CHECK, game.positionHash(), 7));
+        assertEquals(move, moveMade.getMove());
+        assertEquals(MoveMadeMessage.GameStatus.CHECK, moveMade.getStatus());
+        assertEquals(game.positionHash(), moveMade.getPositionHash());
+        assertEquals(7, moveMade.getSequence());
+
+        NotificationMessage notification = (NotificationMessage) decode(new NotificationMessage("héllo"));
+        assertEquals("héllo", notification.getMessage());
+
+        LobbyMessage lobby = (LobbyMessage) decode(new LobbyMessage(LobbyMessage.Change.SNAPSHOT, List.of(
+                new GameData(4, "white", null, "open", null, 2, null, null),
+                new GameData(9, "white", "black", "done", null, 5, GameData.Result.DRAW, GameData.Termination.STALEMATE))));
+        assertEquals(LobbyMessage.Change.SNAPSHOT, lobby.getChange());
+        assertEquals(2, lobby.getGames().size());
+        GameData open = lobby.getGames().get(0);
+        assertEquals(4, open.getGameID());
+        assertEquals(2, open.getVersion());
+        assertEquals("white", open.getWhiteUsername());
+        assertNull(open.getBlackUsername());
+        assertNull(open.getResult());
+        GameData done = lobby.getGames().get(1);
+        assertEquals("done", done.getGameName());
+        assertEquals(GameData.Result.DRAW, done.getResult());
+        assertEquals(GameData.Termination.STALEMATE, done.getTermination());
+    }
+
+    @Test
+    public void truncatedFrameIsRejected() {
+        byte[] frame = CommandCodec.encode(new MakeMoveCommand("token", 1,
+                new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1))));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandCodec.decode(ByteBuffer.wrap(frame, 0, frame.length - 2)));
+    }
+
+    private static UserGameCommand decode(UserGameCommand command) {
+        return CommandCodec.decode(ByteBuffer.wrap(CommandCodec.encode(command)));
+    }
+
+    private static Object decode(ServerMessage message) {
+        return MessageCodec.decode(ByteBuffer.wrap(MessageCodec.encode(message)));
+    }
+}
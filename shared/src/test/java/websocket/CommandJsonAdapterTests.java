@@ -0,0 +1,64 @@
+package websocket;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+import websocket.commands.CommandJsonAdapter;
+import websocket.commands.ConnectCommand;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandJsonAdapterTests {
+    private final Gson plain = new Gson();
+    private final Gson decoding = new GsonBuilder()
+            .registerTypeAdapter(UserGameCommand.class, new CommandJsonAdapter())
+            .create();
+
+    @Test
+    public void decodesSubtypeFromPlainGson() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+
+        UserGameCommand makeMove = decoding.fromJson(plain.toJson(new MakeMoveCommand("token", 4, move)),
+                UserGameCommand.class);
+        UserGameCommand connect = decoding.fromJson(plain.toJson(new ConnectCommand("token", 4, true)),
+                UserGameCommand.class);
+        UserGameCommand resign = decoding.fromJson(
+                plain.toJson(new UserGameCommand(UserGameCommand.CommandType.RESIGN, "token", 4)),
+                UserGameCommand.class);
+
+        assertEquals(move, assertInstanceOf(MakeMoveCommand.class, makeMove).getMove());
+        assertTrue(assertInstanceOf(ConnectCommand.class, connect).wantsDeltaUpdates());
+        assertEquals(new UserGameCommand(UserGameCommand.CommandType.RESIGN, "token", 4), resign);
+    }
+
+    @Test
+    public void acceptsAnyFieldOrder() {
+        String json = "{\"move\":{\"startPosition\":{\"row\":2,\"col\":5},\"endPosition\":{\"row\":4,\"col\":5}},"
+                + "\"extra\":[1,2],\"gameID\":9,\"authToken\":\"token\",\"commandType\":\"MAKE_MOVE\"}";
+
+        MakeMoveCommand command = assertInstanceOf(MakeMoveCommand.class, decoding.fromJson(json, UserGameCommand.class));
+
+        assertEquals(9, command.getGameID());
+        assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)), command.getMove());
+    }
+
+    @Test
+    public void rejectsUnknownCommandType() {
+        assertThrows(JsonParseException.class,
+                () -> decoding.fromJson("{\"commandType\":\"DANCE\",\"gameID\":1}", UserGameCommand.class));
+    }
+
+    @Test
+    public void rejectsNonIntegerGameID() {
+        assertThrows(JsonParseException.class,
+                () -> decoding.fromJson("{\"commandType\":\"CONNECT\",\"gameID\":\"abc\"}", UserGameCommand.class));
+        assertThrows(JsonParseException.class,
+                () -> decoding.fromJson("{\"commandType\":\"CONNECT\",\"gameID\":1.5}", UserGameCommand.class));
+    }
+}